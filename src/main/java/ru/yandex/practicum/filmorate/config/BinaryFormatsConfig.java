@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Ответы в CBOR и Smile по заголовку Accept. Мапперы собираются тем же построителем, что и JSON,
+ * поэтому FilmView и UserView пишутся теми же сериализаторами, а формат полей совпадает с JSON.
+ * Ответы помечаются Vary: Accept, а ETag различаются по формату через RepresentationTags.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class BinaryFormatsConfig implements WebMvcConfigurer {
+    // Построитель объявлен с областью prototype: каждый вызов getObject возвращает новый экземпляр
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+    // Spring сам добавляет конвертеры CBOR и Smile, если модули есть в classpath, но с мапперами без
+    // настроек Spring Boot. Они заменяются на месте; без явного Accept ответ остаётся в JSON,
+    // потому что конвертер JSON идёт в списке раньше.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborMapper()));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(smileMapper()));
+    }
+
+    // Тело ответа любого обработчика зависит от Accept. Заголовок ставится до вызова обработчика,
+    // поэтому есть и в ответах 304
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        });
+    }
+
+    public ObjectMapper cborMapper() {
+        return builders.getObject().factory(new CBORFactory()).build();
+    }
+
+    public ObjectMapper smileMapper() {
+        return builders.getObject().factory(new SmileFactory()).build();
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Пишет FilmView без рефлексии. Выводятся только прочитанные поля, поэтому параметр fields
+ * не требует отдельного фильтра. Вместо множества лайкнувших выводится их число, сами id
+ * отдаются постранично через GET /films/{id}/likes. Имена жанров и режиссёров берутся
+ * из реестра на момент записи; режиссёр, удалённый после чтения фильма, пропускается.
+ */
+public class FilmViewSerializer extends StdSerializer<FilmView> {
+    private final ReferenceRegistry registry;
+
+    public FilmViewSerializer(ReferenceRegistry registry) {
+        super(FilmView.class);
+        this.registry = registry;
+    }
+
+    @Override
+    public void serialize(FilmView film, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        Set<FilmField> fields = film.fields();
+        gen.writeStartObject();
+        gen.writeNumberField("id", film.id());
+        if (fields.contains(FilmField.NAME)) {
+            gen.writeStringField("name", film.name());
+        }
+        if (fields.contains(FilmField.DESCRIPTION)) {
+            gen.writeStringField("description", film.description());
+        }
+        if (fields.contains(FilmField.RELEASE_DATE)) {
+            gen.writeStringField("releaseDate", film.releaseDate() == null ? null : film.releaseDate().toString());
+        }
+        if (fields.contains(FilmField.DURATION)) {
+            gen.writeNumberField("duration", film.duration());
+        }
+        if (fields.contains(FilmField.LIKES_COUNT)) {
+            gen.writeNumberField("likesCount", film.likesCount());
+        }
+        if (fields.contains(FilmField.GENRES)) {
+            gen.writeArrayFieldStart("genres");
+            for (int id : film.genreIds()) {
+                Genre genre = registry.genre(id);
+                writeReference(gen, id, genre == null ? null : genre.getName());
+            }
+            gen.writeEndArray();
+        }
+        if (fields.contains(FilmField.MPA)) {
+            if (film.mpa() == null) {
+                gen.writeNullField("mpa");
+            } else {
+                gen.writeFieldName("mpa");
+                writeReference(gen, film.mpa().getId(), film.mpa().getName());
+            }
+        }
+        if (fields.contains(FilmField.DIRECTORS)) {
+            gen.writeArrayFieldStart("directors");
+            for (long id : film.directorIds()) {
+                Director director = registry.director(id);
+                if (director != null) {
+                    writeReference(gen, id, director.getName());
+                }
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeReference(JsonGenerator gen, long id, String name) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", id);
+        gen.writeStringField("name", name);
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.UserView;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
+
+@Configuration
+public class JacksonConfig {
+
+    // Ответы о фильмах и пользователях пишутся своими сериализаторами, без обхода свойств через рефлексию
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer viewSerializersCustomizer(ReferenceRegistry registry) {
+        return builder -> builder
+                .serializerByType(FilmView.class, new FilmViewSerializer(registry))
+                .serializerByType(UserView.class, new UserViewSerializer());
+    }
+}
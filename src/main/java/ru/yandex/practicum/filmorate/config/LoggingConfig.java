@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+@Configuration
+public class LoggingConfig {
+
+    // Logbook записывает только долю запросов; списки путей и ограничение тела задаются в application.yaml.
+    // Имя бина заменяет условие по умолчанию, с которым Logbook объединяет logbook.predicate
+    @Bean
+    public Predicate<HttpRequest> requestCondition(
+            @Value("${filmorate.logging.http-sample-rate:1.0}") double sampleRate) {
+        if (sampleRate >= 1.0) {
+            return request -> true;
+        }
+        return request -> ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
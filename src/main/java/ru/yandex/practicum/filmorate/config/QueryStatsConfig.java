@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.yandex.practicum.filmorate.controller.QueryStatsInterceptor;
+import ru.yandex.practicum.filmorate.dao.QueryCountingDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.sql.query-stats.enabled", havingValue = "true")
+public class QueryStatsConfig implements WebMvcConfigurer {
+    private final QueryStatsInterceptor queryStatsInterceptor;
+
+    // Оборачивается сам DataSource, поэтому учитываются и JdbcTemplate, и транзакции, и пакетная запись лайков
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+                    return new QueryCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryStatsInterceptor);
+    }
+}
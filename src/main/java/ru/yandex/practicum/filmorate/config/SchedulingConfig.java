@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Ночной пересчёт рекомендаций; расписание задаётся в application.yaml
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
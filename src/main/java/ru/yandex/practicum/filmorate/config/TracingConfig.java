@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.tracing.TraceFileExporter;
+import ru.yandex.practicum.filmorate.tracing.TracingInterceptor;
+
+@Configuration
+@ConditionalOnProperty(name = "filmorate.tracing.enabled", havingValue = "true")
+public class TracingConfig {
+
+    // Участки SQL-запросов открывает QueryCountingDataSource (при filmorate.sql.query-stats.enabled),
+    // здесь только вызовы бинов приложения
+    @Bean
+    public static Advisor tracingAdvisor() {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression("within(ru.yandex.practicum.filmorate..*) && (" +
+                "@within(org.springframework.web.bind.annotation.RestController) " +
+                "|| @within(org.springframework.stereotype.Service) " +
+                "|| (within(ru.yandex.practicum.filmorate.dao..*) " +
+                "&& (@within(org.springframework.stereotype.Component) " +
+                "|| @within(org.springframework.stereotype.Repository))))");
+        return new DefaultPointcutAdvisor(pointcut, new TracingInterceptor());
+    }
+
+    // У файла нет пути по умолчанию: без filmorate.tracing.file приложение с трассировкой не запустится
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public TraceFileExporter traceFileExporter(@Value("${filmorate.tracing.file}") String file,
+                                               @Value("${filmorate.logging.async-queue-size:8192}") int queueSize) {
+        return new TraceFileExporter(file, queueSize);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import ru.yandex.practicum.filmorate.model.UserView;
+
+import java.io.IOException;
+
+/**
+ * Пишет UserView без рефлексии, поля идут в том же порядке, что у {@link ru.yandex.practicum.filmorate.model.User}.
+ */
+public class UserViewSerializer extends StdSerializer<UserView> {
+
+    public UserViewSerializer() {
+        super(UserView.class);
+    }
+
+    @Override
+    public void serialize(UserView user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", user.id());
+        gen.writeStringField("email", user.email());
+        gen.writeStringField("login", user.login());
+        gen.writeStringField("name", user.name());
+        gen.writeStringField("birthday", user.birthday() == null ? null : user.birthday().toString());
+        gen.writeEndObject();
+    }
+}
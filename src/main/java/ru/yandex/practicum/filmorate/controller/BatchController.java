@@ -0,0 +1,176 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BatchRequest;
+import ru.yandex.practicum.filmorate.model.BatchResponse;
+import ru.yandex.practicum.filmorate.model.ErrorResponse;
+import ru.yandex.practicum.filmorate.tracing.Span;
+import ru.yandex.practicum.filmorate.tracing.Tracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Выполняет несколько GET-запросов за один HTTP-запрос. Подзапросы проходят через собственный
+ * DispatcherServlet с теми же отображениями, перехватчиками и обработчиками ошибок, что и обычные
+ * запросы, поэтому пакет поддерживает все GET-пути API с их проверками параметров, ETag, метриками
+ * и трассировкой. Подзапросы выполняются параллельно в виртуальных потоках. Тела подзапросов
+ * встраиваются в ответ как JSON, поэтому и сам пакет отвечает только в JSON.
+ */
+@RestController
+@RequestMapping("/batch")
+public class BatchController {
+    static final int MAX_BATCH_SIZE = 20;
+    static final String DISPATCHER_NAME = "batchDispatcher";
+    private static final Logger log = LoggerFactory.getLogger(BatchController.class);
+
+    private final ObjectMapper objectMapper;
+    private final WebApplicationContext context;
+    private final ServletContext servletContext;
+    private volatile DispatcherServlet dispatcher;
+
+    public BatchController(ObjectMapper objectMapper, WebApplicationContext context, ServletContext servletContext) {
+        this.objectMapper = objectMapper;
+        this.context = context;
+        this.servletContext = servletContext;
+    }
+
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public List<BatchResponse> execute(@RequestBody List<BatchRequest> requests, HttpServletRequest request,
+                                       HttpServletResponse response) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            log.warn("В пакете {} запросов, допускается не более {}", requests.size(), MAX_BATCH_SIZE);
+            throw new ValidationException("В пакете может быть не более " + MAX_BATCH_SIZE + " запросов");
+        }
+        log.trace("Выполнение пакета из {} запросов", requests.size());
+
+        // Подзапросы готовятся в потоке запроса: исходный запрос не рассчитан на чтение из нескольких потоков.
+        // Участок пакета передаётся в виртуальные потоки явно, чтобы подзапросы попали в его трассировку
+        Span batchSpan = Tracer.current();
+        List<Callable<BatchResponse>> calls = new ArrayList<>(requests.size());
+        for (BatchRequest item : requests) {
+            calls.add(Tracer.wrap(batchSpan, prepare(item, request, response)));
+        }
+        List<Future<BatchResponse>> futures = new ArrayList<>(calls.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Callable<BatchResponse> call : calls) {
+                futures.add(executor.submit(call));
+            }
+        }
+        return futures.stream().map(Future::resultNow).toList();
+    }
+
+    private Callable<BatchResponse> prepare(BatchRequest item, HttpServletRequest request,
+                                            HttpServletResponse response) {
+        String path = item.getPath();
+        if (path == null || !path.startsWith("/")) {
+            BatchResponse error = error(path, HttpStatus.BAD_REQUEST.value(), "Путь подзапроса должен начинаться с /");
+            return () -> error;
+        }
+        if (!"GET".equalsIgnoreCase(item.getMethod())) {
+            BatchResponse error = error(path, HttpStatus.METHOD_NOT_ALLOWED.value(),
+                    "Поддерживаются только GET-запросы");
+            return () -> error;
+        }
+        BatchItemRequest itemRequest;
+        try {
+            itemRequest = new BatchItemRequest(request, path, item.getHeaders());
+        } catch (IllegalArgumentException e) {
+            BatchResponse error = error(path, HttpStatus.BAD_REQUEST.value(), "Некорректный путь подзапроса " + path);
+            return () -> error;
+        }
+        BatchItemResponse itemResponse = new BatchItemResponse(response);
+        return () -> dispatch(path, itemRequest, itemResponse);
+    }
+
+    // Ошибки, которые обработал ErrorHandler, уже записаны в тело; у ответов sendError тела нет
+    private BatchResponse dispatch(String path, BatchItemRequest request, BatchItemResponse response) {
+        try {
+            dispatcher().service(request, response);
+        } catch (Exception e) {
+            log.warn("Ошибка при выполнении подзапроса {}", path, e);
+            return error(path, HttpStatus.INTERNAL_SERVER_ERROR.value(), e.getMessage());
+        }
+        String body = response.getBodyAsString();
+        if (body == null && response.getStatus() >= HttpStatus.BAD_REQUEST.value()) {
+            HttpStatus status = HttpStatus.resolve(response.getStatus());
+            return error(path, response.getStatus(), response.getErrorMessage() != null
+                    ? response.getErrorMessage()
+                    : status != null ? status.getReasonPhrase() : null);
+        }
+        return new BatchResponse(path, response.getStatus(), body, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private BatchResponse error(String path, int status, String message) {
+        try {
+            String body = objectMapper.writeValueAsString(new ErrorResponse(message));
+            return new BatchResponse(path, status, body, null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Создаётся при первом пакете: при создании контроллера отображения запросов ещё не готовы
+    private DispatcherServlet dispatcher() throws ServletException {
+        DispatcherServlet current = dispatcher;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (dispatcher == null) {
+                DispatcherServlet servlet = new DispatcherServlet(context);
+                servlet.setPublishContext(false);
+                servlet.setPublishEvents(false);
+                servlet.init(new ServletConfig() {
+                    @Override
+                    public String getServletName() {
+                        return DISPATCHER_NAME;
+                    }
+
+                    @Override
+                    public ServletContext getServletContext() {
+                        return servletContext;
+                    }
+
+                    @Override
+                    public String getInitParameter(String name) {
+                        return null;
+                    }
+
+                    @Override
+                    public Enumeration<String> getInitParameterNames() {
+                        return Collections.emptyEnumeration();
+                    }
+                });
+                dispatcher = servlet;
+            }
+            return dispatcher;
+        }
+    }
+}
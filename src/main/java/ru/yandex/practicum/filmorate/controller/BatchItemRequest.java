@@ -0,0 +1,205 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * GET-подзапрос пакета поверх исходного запроса /batch. Путь, параметры, заголовки и атрибуты
+ * у каждого подзапроса свои: подзапросы обрабатываются параллельно и не должны видеть состояние
+ * друг друга или пакета. Заголовки клиента передаются подзапросу, кроме тех, что описывают сам
+ * запрос /batch, и дополняются заголовками элемента пакета. Тело ответа встраивается в JSON пакета,
+ * поэтому подзапрос всегда просит JSON, какой бы Accept ни был указан.
+ */
+class BatchItemRequest extends HttpServletRequestWrapper {
+    // Формат, тело и условия запроса /batch к подзапросам не относятся
+    private static final Set<String> BATCH_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        BATCH_HEADERS.addAll(List.of(HttpHeaders.ACCEPT, HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH,
+                HttpHeaders.CONTENT_ENCODING, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.IF_MATCH,
+                HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_UNMODIFIED_SINCE,
+                HttpHeaders.IF_RANGE));
+    }
+
+    private final String requestUri;
+    private final String requestUrl;
+    private final String servletPath;
+    private final String queryString;
+    private final Map<String, String[]> parameters;
+    private final HttpHeaders headers = new HttpHeaders();
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    // Создаётся в потоке запроса /batch, пока исходный запрос ещё можно читать
+    BatchItemRequest(HttpServletRequest request, String path, Map<String, String> itemHeaders) {
+        super(request);
+        UriComponents uri = UriComponentsBuilder.fromUriString(path).build();
+        String url = request.getRequestURL().toString();
+        this.requestUri = request.getContextPath() + uri.getPath();
+        this.requestUrl = url.substring(0, url.length() - request.getRequestURI().length()) + requestUri;
+        this.servletPath = UriUtils.decode(uri.getPath(), StandardCharsets.UTF_8);
+        this.queryString = uri.getQuery();
+        this.parameters = decode(uri.getQueryParams());
+
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!BATCH_HEADERS.contains(name)) {
+                headers.put(name, Collections.list(request.getHeaders(name)));
+            }
+        }
+        if (itemHeaders != null) {
+            itemHeaders.forEach((name, value) -> {
+                if (value != null) {
+                    headers.set(name, value);
+                }
+            });
+        }
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.set(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    @Override
+    public String getMethod() {
+        return HttpMethod.GET.name();
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestUri;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        return new StringBuffer(requestUrl);
+    }
+
+    @Override
+    public String getServletPath() {
+        return servletPath;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null ? null : values[0];
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters.get(name);
+        return values == null ? null : values.clone();
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return headers.getFirst(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        return Collections.enumeration(headers.getOrEmpty(name));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        return headers.getFirstDate(name);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = headers.getFirst(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    // У GET-подзапроса нет тела: тело /batch уже прочитано контроллером пакета
+    @Override
+    public String getContentType() {
+        return null;
+    }
+
+    @Override
+    public int getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return -1;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(List.copyOf(attributes.keySet()));
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    // Как у контейнера сервлетов: плюс в строке запроса означает пробел
+    private static Map<String, String[]> decode(MultiValueMap<String, String> params) {
+        Map<String, String[]> decoded = new LinkedHashMap<>();
+        params.forEach((name, values) -> decoded.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                values.stream()
+                        .map(value -> value == null ? "" : URLDecoder.decode(value, StandardCharsets.UTF_8))
+                        .toArray(String[]::new)));
+        return decoded;
+    }
+}
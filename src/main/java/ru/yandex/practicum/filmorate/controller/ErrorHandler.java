@@ -10,46 +10,42 @@ import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ServerErrorException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
-
-import java.util.HashMap;
-import java.util.Map;
+import ru.yandex.practicum.filmorate.model.ErrorResponse;
 
 @RestControllerAdvice
 public class ErrorHandler {
     @ExceptionHandler
     @ResponseStatus(HttpStatus.NOT_FOUND)
-    public Map<String, String> handleNotFoundException(final NotFoundException e) {
-        Map<String, String> errorResponse = new HashMap<>();
-        errorResponse.put("error", e.getMessage());
-        return errorResponse;
+    public ErrorResponse handleNotFoundException(final NotFoundException e) {
+        return new ErrorResponse(e.getMessage());
     }
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ValidationException handleValidationException(final ValidationException e) {
-        return new ValidationException(e.getMessage());
+    public ErrorResponse handleValidationException(final ValidationException e) {
+        return new ErrorResponse(e.getMessage());
     }
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public DuplicatedDataException handleDuplicatedDataException(final DuplicatedDataException e) {
-        return new DuplicatedDataException(e.getMessage());
+    public ErrorResponse handleDuplicatedDataException(final DuplicatedDataException e) {
+        return new ErrorResponse(e.getMessage());
     }
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-    public ServerErrorException handleServerErrorException(final ServerErrorException e) {
-        return new ServerErrorException(e.getMessage());
+    public ErrorResponse handleServerErrorException(final ServerErrorException e) {
+        return new ErrorResponse(e.getMessage());
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ValidationException handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
+    public ErrorResponse handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
         FieldError fieldError = ex.getBindingResult().getFieldError();
         if (fieldError != null) {
-            return new ValidationException(fieldError.getDefaultMessage());
+            return new ErrorResponse(fieldError.getDefaultMessage());
         }
-        return new ValidationException("Validation failed");
+        return new ErrorResponse("Validation failed");
     }
 
 }
@@ -15,11 +15,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequiredArgsConstructor
@@ -27,22 +34,31 @@ import java.util.List;
 public class FilmController {
     private static final Logger log = LoggerFactory.getLogger(FilmController.class);
     private final FilmService filmService;
+    private final RecommendationService recommendationService;
+    private final RepresentationTags representationTags;
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> findAll() {
-        return filmService.findAll();
+    public Iterable<FilmView> findAll(@RequestParam(required = false) List<String> fields) {
+        return filmService.streamAll(FilmField.parse(fields));
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public MultiGetResult<FilmView> getFilmsByIds(@RequestParam List<Long> ids,
+                                              @RequestParam(required = false) List<String> fields) {
+        return filmService.getFilmsByIds(ids, FilmField.parse(fields));
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public Film create(@Valid @RequestBody Film film) {
+    public FilmView create(@Valid @RequestBody Film film) {
         return filmService.create(film);
     }
 
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
-    public Film update(@Valid @RequestBody Film newFilm) {
+    public FilmView update(@Valid @RequestBody Film newFilm) {
         return filmService.update(newFilm);
     }
 
@@ -58,37 +74,71 @@ public class FilmController {
         filmService.deleteLike(filmId, userId);
     }
 
-    @GetMapping("/popular")
+    @GetMapping("/{id}/likes")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Long> getLikes(@PathVariable("id") Long filmId,
+                               @RequestParam(name = "after", defaultValue = "0") Long afterUserId,
+                               @RequestParam(name = "count", defaultValue = "100") Integer count) {
+        return filmService.getLikes(filmId, afterUserId, count);
+    }
+
+    @GetMapping("/{id}/similar")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getPopularFilms(
+    public List<FilmView> getSimilarFilms(@PathVariable("id") Long filmId,
+                                          @RequestParam(name = "count", defaultValue = "10") Integer count) {
+        return recommendationService.getSimilarFilms(filmId, count);
+    }
+
+    @PostMapping("/likes:batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<LikeOperation> applyLikes(@RequestBody List<LikeOperation> operations) {
+        return filmService.applyLikes(operations);
+    }
+
+    // Без @ResponseStatus: иначе статус 304 от checkNotModified будет заменён на 200
+    @GetMapping("/popular")
+    public Collection<FilmView> getPopularFilms(
             @RequestParam(name = "count", defaultValue = "10", required = false) Integer count,
             @RequestParam(name = "genreId", required = false) Integer genreId,
-            @RequestParam(name = "year", required = false) Integer year
+            @RequestParam(name = "year", required = false) Integer year,
+            @RequestParam(name = "fields", required = false) List<String> fields,
+            NativeWebRequest request
     ) {
-        return filmService.getPopularFilms(count, genreId, year);
+        Set<FilmField> filmFields = FilmField.parse(fields);
+        if (representationTags.checkNotModified(request, filmService.getPopularFilmsTag())) {
+            return null;
+        }
+        return filmService.getPopularFilms(count, genreId, year, filmFields);
     }
 
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public Film getFilmById(@PathVariable Long id) {
-        return filmService.getFilmById(id);
+    public FilmView getFilmById(@PathVariable Long id, @RequestParam(required = false) List<String> fields,
+                            NativeWebRequest request) {
+        Set<FilmField> filmFields = FilmField.parse(fields);
+        if (representationTags.checkNotModified(request, filmService.getFilmTag(id))) {
+            return null;
+        }
+        return filmService.getFilmById(id, filmFields);
     }
 
     @GetMapping("/director/{directorId}")
-    public List<Film> getFilmsByDirector(@PathVariable Long directorId, @RequestParam String sortBy) {
-        return filmService.getFilmsByDirector(directorId, sortBy);
+    public List<FilmView> getFilmsByDirector(@PathVariable Long directorId, @RequestParam String sortBy,
+                                         @RequestParam(required = false) List<String> fields) {
+        return filmService.getFilmsByDirector(directorId, sortBy, FilmField.parse(fields));
     }
 
     @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
-    public List<Film> searchFilms(@RequestParam String query, @RequestParam List<String> by) {
-        return filmService.search(query, by);
+    public List<FilmView> searchFilms(@RequestParam String query, @RequestParam List<String> by,
+                                  @RequestParam(required = false) List<String> fields) {
+        return filmService.search(query, by, FilmField.parse(fields));
     }
 
     @GetMapping("/common")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getCommonFilms(@RequestParam Long userId, @RequestParam Long friendId) {
-        return filmService.getCommonFilms(userId, friendId);
+    public Collection<FilmView> getCommonFilms(@RequestParam Long userId, @RequestParam Long friendId,
+                                           @RequestParam(required = false) List<String> fields) {
+        return filmService.getCommonFilms(userId, friendId, FilmField.parse(fields));
     }
 
     @DeleteMapping("/{filmId}")
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.metrics.MetricsRegistry;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/internal/metrics")
+public class MetricsController {
+    private final MetricsRegistry metricsRegistry;
+
+    @GetMapping(produces = "text/plain;version=0.0.4;charset=utf-8")
+    public String scrape() {
+        return metricsRegistry.scrape();
+    }
+}
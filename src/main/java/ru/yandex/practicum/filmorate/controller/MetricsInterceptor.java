@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.yandex.practicum.filmorate.dao.QueryStats;
+import ru.yandex.practicum.filmorate.metrics.LatencyHistogram;
+import ru.yandex.practicum.filmorate.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+public class MetricsInterceptor implements HandlerInterceptor {
+    private static final String START_ATTRIBUTE = MetricsInterceptor.class.getName() + ".start";
+
+    private final MetricsRegistry metricsRegistry;
+    private final Map<HandlerMethod, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(handler instanceof HandlerMethod method)
+                || !(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        histograms.computeIfAbsent(method, key -> metricsRegistry.requestLatency(
+                        key.getBeanType().getSimpleName() + "#" + key.getMethod().getName()))
+                .record(System.nanoTime() - start);
+
+        if (response.getStatus() == HttpStatus.NOT_MODIFIED.value()) {
+            metricsRegistry.recordCacheHit("etag");
+        }
+        if (request.getAttribute(QueryStatsInterceptor.STATS_ATTRIBUTE) instanceof QueryStats stats) {
+            metricsRegistry.recordQueries(stats);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.yandex.practicum.filmorate.dao.QueryStats;
+
+@Component
+public class QueryStatsInterceptor implements HandlerInterceptor {
+    public static final String STATS_ATTRIBUTE = QueryStats.class.getName();
+    private static final Logger log = LoggerFactory.getLogger(QueryStatsInterceptor.class);
+
+    private final int repeatedStatementThreshold;
+
+    public QueryStatsInterceptor(@Value("${filmorate.sql.repeated-statement-threshold:5}")
+                                 int repeatedStatementThreshold) {
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(STATS_ATTRIBUTE, QueryStats.start());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        QueryStats.clear();
+        if (!(request.getAttribute(STATS_ATTRIBUTE) instanceof QueryStats stats)) {
+            return;
+        }
+        String endpoint = endpointName(handler);
+        log.debug("{}: {} SQL-запросов, {} строк, {} мс", endpoint, stats.getStatements(), stats.getRows(),
+                stats.getMillis());
+        stats.getRepeatedStatements(repeatedStatementThreshold).forEach((sql, count) ->
+                log.warn("Возможная проблема N+1 в {}: запрос выполнен {} раз: {}", endpoint, count, sql));
+    }
+
+    private static String endpointName(Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "#" + method.getMethod().getName();
+        }
+        return handler.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.List;
+
+/**
+ * Проверка If-None-Match с учётом формата ответа. JSON, CBOR и Smile одного ресурса — разные
+ * представления, поэтому к версии ресурса добавляется формат, выбранный по заголовку Accept:
+ * иначе клиент или общий кэш с JSON-телом получит 304 на запрос CBOR. Заголовок Vary: Accept
+ * ставит BinaryFormatsConfig.
+ */
+@Component
+public class RepresentationTags {
+    private static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+    // В порядке конвертеров: при Accept: */* ответ пишется в JSON
+    private static final List<Format> FORMATS = List.of(
+            new Format(MediaType.APPLICATION_JSON, "json"),
+            new Format(MediaType.APPLICATION_CBOR, "cbor"),
+            new Format(APPLICATION_SMILE, "smile"));
+
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    public RepresentationTags(ContentNegotiationManager mvcContentNegotiationManager) {
+        this.contentNegotiationManager = mvcContentNegotiationManager;
+    }
+
+    public boolean checkNotModified(NativeWebRequest request, String tag) {
+        return request.checkNotModified(tag + "-" + format(request));
+    }
+
+    // Неподдерживаемый Accept всё равно закончится ответом 406, метка для него не важна
+    private String format(NativeWebRequest request) {
+        try {
+            for (MediaType accepted : contentNegotiationManager.resolveMediaTypes(request)) {
+                for (Format format : FORMATS) {
+                    if (accepted.isCompatibleWith(format.type())) {
+                        return format.name();
+                    }
+                }
+            }
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            return "none";
+        }
+        return "none";
+    }
+
+    private record Format(MediaType type, String name) {
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.service.ReviewService;
 
@@ -23,10 +24,13 @@ import java.util.List;
 @RequestMapping("/reviews")
 public class ReviewController {
     private final ReviewService reviewService;
+    private final RepresentationTags representationTags;
 
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public Review getReview(@PathVariable Long id) {
+    public Review getReview(@PathVariable Long id, NativeWebRequest request) {
+        if (representationTags.checkNotModified(request, reviewService.getReviewTag(id))) {
+            return null;
+        }
         return reviewService.getReviewById(id);
     }
 
@@ -47,9 +51,12 @@ public class ReviewController {
     }
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
     public List<Review> getAll(@RequestParam(required = false) Long filmId,
-                               @RequestParam(defaultValue = "10") int count) {
+                               @RequestParam(defaultValue = "10") int count,
+                               NativeWebRequest request) {
+        if (representationTags.checkNotModified(request, reviewService.getReviewsTag())) {
+            return null;
+        }
         return reviewService.getAllReviews(filmId, count);
     }
 
@@ -10,17 +10,21 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
 import ru.yandex.practicum.filmorate.model.Event;
-import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserView;
 import ru.yandex.practicum.filmorate.service.EventService;
 import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
-import java.util.Set;
+import java.util.List;
 
 @RestController()
 @AllArgsConstructor
@@ -29,40 +33,47 @@ public class UserController {
     private final UserService userService;
     private final EventService eventService;
     private final RecommendationService recommendationService;
+    private final RepresentationTags representationTags;
 
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public User getUserById(@PathVariable("id") Long id) {
+    public UserView getUserById(@PathVariable("id") Long id) {
         return userService.getUserById(id);
     }
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public Collection<User> findAll() {
+    public Collection<UserView> findAll() {
         return userService.findAll();
     }
 
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public MultiGetResult<UserView> getUsersByIds(@RequestParam List<Long> ids) {
+        return userService.getUsersByIds(ids);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public User create(@Valid @RequestBody User user) {
+    public UserView create(@Valid @RequestBody User user) {
         return userService.create(user);
     }
 
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
-    public User update(@Valid @RequestBody User newUser) {
+    public UserView update(@Valid @RequestBody User newUser) {
         return userService.update(newUser);
     }
 
     @GetMapping("/{id}/friends")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<User> getFriends(@PathVariable("id") Long userId) {
+    public Collection<UserView> getFriends(@PathVariable("id") Long userId) {
         return userService.getFriends(userId);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<User> getCommonFriends(@PathVariable("id") Long userId, @PathVariable("otherId") Long otherId) {
+    public Collection<UserView> getCommonFriends(@PathVariable("id") Long userId, @PathVariable("otherId") Long otherId) {
         return userService.getCommonFriends(userId, otherId);
     }
 
@@ -85,14 +96,17 @@ public class UserController {
     }
 
     @GetMapping("/{id}/feed")
-    @ResponseStatus(HttpStatus.OK)
-    public Collection<Event> getFeed(@PathVariable("id") Long userId) {
-        return eventService.findByUserId(userId);
+    public Iterable<Event> getFeed(@PathVariable("id") Long userId, NativeWebRequest request) {
+        if (representationTags.checkNotModified(request, eventService.getFeedTag(userId))) {
+            return null;
+        }
+        return eventService.streamByUserId(userId);
     }
 
     @GetMapping("/{id}/recommendations")
     @ResponseStatus(HttpStatus.OK)
-    public Set<Film> getRecommendations(@PathVariable("id") Long userId) {
-        return recommendationService.getRecommendationFilms(userId);
+    public List<FilmView> getRecommendations(@PathVariable("id") Long userId,
+                                             @RequestParam(defaultValue = "likes") String strategy) {
+        return recommendationService.getRecommendationFilms(userId, strategy);
     }
 }
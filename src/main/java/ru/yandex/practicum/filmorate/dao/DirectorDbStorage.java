@@ -10,6 +10,8 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
 
 import java.sql.PreparedStatement;
@@ -19,9 +21,14 @@ import java.util.stream.Collectors;
 @Component
 public class DirectorDbStorage implements DirectorStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final DirectorMapper directorMapper;
+    private final ReferenceRegistry registry;
+    private final VersionCounter versions = new VersionCounter();
 
-    public DirectorDbStorage(JdbcTemplate jdbcTemplate) {
+    public DirectorDbStorage(JdbcTemplate jdbcTemplate, DirectorMapper directorMapper, ReferenceRegistry registry) {
         this.jdbcTemplate = jdbcTemplate;
+        this.directorMapper = directorMapper;
+        this.registry = registry;
     }
 
     @Override
@@ -35,6 +42,10 @@ public class DirectorDbStorage implements DirectorStorage {
             return statement;
         }, keyHolder);
         director.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        // Реестр видят все потоки, поэтому он узнаёт о режиссёре только после коммита
+        long id = director.getId();
+        String name = director.getName();
+        VersionCounter.afterCommit(() -> registry.director(id, name));
 
         return director;
     }
@@ -49,6 +60,10 @@ public class DirectorDbStorage implements DirectorStorage {
 
         sql = "UPDATE directors SET name = ? WHERE director_id = ?";
         jdbcTemplate.update(sql, director.getName(), director.getId());
+        long id = director.getId();
+        String name = director.getName();
+        VersionCounter.afterCommit(() -> registry.director(id, name));
+        versions.touch();
 
         return director;
     }
@@ -57,13 +72,15 @@ public class DirectorDbStorage implements DirectorStorage {
     public void delete(Long id) {
         String sql = "DELETE FROM directors WHERE director_id = ?";
         jdbcTemplate.update(sql, id);
+        VersionCounter.afterCommit(() -> registry.removeDirector(id));
+        versions.touch();
     }
 
     @Override
     public Director getById(Long id) {
         String sql = "SELECT * FROM directors WHERE director_id = ?";
         try {
-            return jdbcTemplate.queryForObject(sql, new DirectorMapper(), id);
+            return jdbcTemplate.queryForObject(sql, directorMapper, id);
         } catch (EmptyResultDataAccessException e) {
             throw new NotFoundException("Режиссер с ID " + id + " не найден.");
         }
@@ -72,7 +89,12 @@ public class DirectorDbStorage implements DirectorStorage {
     @Override
     public Collection<Director> findAll() {
         String sql = "SELECT * FROM directors";
-        return jdbcTemplate.query(sql, new DirectorMapper());
+        return jdbcTemplate.query(sql, directorMapper.list());
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
     }
 
     public Map<Long, Set<Director>> getDirectorsForFilms(Collection<Long> filmIds) {
@@ -85,10 +107,7 @@ public class DirectorDbStorage implements DirectorStorage {
             Map<Long, Set<Director>> directorsByFilm = new HashMap<>();
             while (rs.next()) {
                 Long filmId = rs.getLong("film_id");
-                Director director = Director.builder()
-                        .id(rs.getLong("director_id"))
-                        .name(rs.getString("name"))
-                        .build();
+                Director director = registry.director(rs.getLong("director_id"), rs.getString("name"));
                 directorsByFilm.computeIfAbsent(filmId, k -> new HashSet<>()).add(director);
             }
             return directorsByFilm;
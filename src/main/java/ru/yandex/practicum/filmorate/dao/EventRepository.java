@@ -5,21 +5,46 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.mappers.EventMapper;
 import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
 
 import java.util.Collection;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class EventRepository {
     private final JdbcTemplate jdbcTemplate;
+    private final VersionCounter versions = new VersionCounter();
 
     public Collection<Event> findByUserId(Long userId) {
         String sql = "SELECT * FROM events WHERE user_id = ?";
-        return jdbcTemplate.query(sql, new EventMapper(), userId);
+        return jdbcTemplate.query(sql, EventMapper.INSTANCE.list(), userId);
+    }
+
+    public List<Event> findPage(Long userId, long afterEventId, int count) {
+        String sql = "SELECT * FROM events WHERE user_id = ? AND event_id > ? ORDER BY event_id LIMIT ?";
+        return jdbcTemplate.query(sql, EventMapper.INSTANCE.list(), userId, afterEventId, count);
     }
 
     public void createEvent(Event event) {
         String sql = "INSERT INTO events ( user_id, entity_id, operation, event_type, timestamp) VALUES (?,?,?,?,?)";
         jdbcTemplate.update(sql, event.getUserId(), event.getEntityId(), event.getOperation().toString(), event.getEventType().toString(), event.getTimestamp());
+        versions.touch(event.getUserId());
+    }
+
+    public void createEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO events ( user_id, entity_id, operation, event_type, timestamp) VALUES (?,?,?,?,?)";
+        jdbcTemplate.batchUpdate(sql, events.stream()
+                .map(event -> new Object[]{event.getUserId(), event.getEntityId(), event.getOperation().toString(),
+                        event.getEventType().toString(), event.getTimestamp()})
+                .toList());
+        events.stream().map(Event::getUserId).distinct().forEach(versions::touch);
+    }
+
+    public long getVersion(Long userId) {
+        return versions.get(userId);
     }
 }
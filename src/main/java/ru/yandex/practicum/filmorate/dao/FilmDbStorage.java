@@ -5,16 +5,23 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.mappers.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.rating.RatingStorage;
@@ -23,6 +30,9 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component("filmDbStorage")
 public class FilmDbStorage implements FilmStorage {
@@ -31,27 +41,40 @@ public class FilmDbStorage implements FilmStorage {
     private final RatingStorage ratingStorage;
     private final GenreStorage genreStorage;
     private final DirectorDbStorage directorDbStorage;
+    private final ReferenceRegistry registry;
+    private final List<LikeIndex> likeIndexes;
+    private final VersionCounter versions = new VersionCounter();
+    // Наборов полей не больше 2^9, поэтому маппер для каждого создаётся один раз
+    private final Map<Set<FilmField>, FilmMapper> mappers = new ConcurrentHashMap<>();
     private static final Logger log = LoggerFactory.getLogger(FilmStorage.class);
 
     @Autowired
-    public FilmDbStorage(JdbcTemplate jdbcTemplate, RatingStorage ratingStorage, GenreStorage genreStorage, DirectorDbStorage directorDbStorage) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, RatingStorage ratingStorage, GenreStorage genreStorage,
+                         DirectorDbStorage directorDbStorage, ReferenceRegistry registry,
+                         List<LikeIndex> likeIndexes) {
         this.jdbcTemplate = jdbcTemplate;
+        this.registry = registry;
+        this.likeIndexes = likeIndexes;
         this.genreStorage = genreStorage;
         this.ratingStorage = ratingStorage;
         this.directorDbStorage = directorDbStorage;
     }
 
     @Override
-    public Collection<Film> findAll() {
-        String sql = "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.rating_id, r.rating_name " +
-                "FROM films AS f JOIN ratings AS r ON f.rating_id=r.rating_id";
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum));
-        setFilmGenres(films);
-        addDirectorsToFilms(films);
-
-        return films;
+    public Collection<FilmView> findAll(Set<FilmField> fields) {
+        String sql = "SELECT " + filmColumns(fields) + " FROM films AS f " + ratingJoin(fields);
+        List<FilmView> films = jdbcTemplate.query(sql, filmMapper(fields));
+        return enrich(films, fields);
     }
 
+    @Override
+    public List<FilmView> findPage(long afterId, int count, Set<FilmField> fields) {
+        String sql = "SELECT " + filmColumns(fields) + " FROM films AS f " + ratingJoin(fields) +
+                "WHERE f.film_id > ? ORDER BY f.film_id LIMIT ?";
+        return enrich(jdbcTemplate.query(sql, filmMapper(fields), afterId, count), fields);
+    }
+
+    @Transactional
     @Override
     public Film create(Film film) {
         checkRating(film.getMpa().getId());
@@ -70,60 +93,74 @@ public class FilmDbStorage implements FilmStorage {
         film.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
         updateGenres(film.getGenres(), film.getId());
         directorDbStorage.updateDirectorsForFilm(film);
+        versions.touch(film.getId());
         return film;
     }
 
+    // Жанры и режиссёры обновляются по разнице со старыми связями, ответ строится без повторного чтения фильма.
+    // Правка без смены связей обходится одним запросом
+    @Transactional
     @Override
-    public Film update(Film film) {
-        checkRating(film.getMpa().getId());
+    public FilmView update(Film film) {
         Long id = film.getId();
-        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, rating_id = ? " +
-                "WHERE film_id = ?";
-        try {
-            this.getFilmById(id);
-        } catch (NotFoundException e) {
-            log.warn("Фильм с id = {} не найден", id);
-            throw new NotFoundException("Film not found");
-        }
+        FilmReferences references = updateAndLoadReferences(film);
 
-        jdbcTemplate.update(sql, film.getName(), film.getDescription(), film.getReleaseDate(), film.getDuration(),
-                film.getMpa().getId(), id);
+        Set<Integer> genreIds = film.getGenres() == null ? references.linkedGenres
+                : film.getGenres().stream().map(Genre::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+        updateLinks("films_Genres", "genre_id", id, references.linkedGenres, genreIds);
 
-        updateGenres(film.getGenres(), id);
-        directorDbStorage.updateDirectorsForFilm(film);
-        return getFilmById(id);
+        Set<Long> directorIds = film.getDirectors() == null ? new LinkedHashSet<>()
+                : film.getDirectors().stream().map(Director::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+        updateLinks("film_director", "director_id", id, references.linkedDirectors, directorIds);
+
+        versions.touch(id);
+        return new FilmView(id, film.getName(), film.getDescription(), film.getReleaseDate(), film.getDuration(),
+                references.mpa, genreIds.stream().mapToInt(Integer::intValue).toArray(),
+                directorIds.stream().mapToLong(Long::longValue).toArray(), references.likesCount, FilmField.ALL);
     }
 
     @Override
     public void deleteFilmById(Long id) {
         String sql = "DELETE FROM films WHERE film_id = ?";
         jdbcTemplate.update(sql, id);
+        likeIndexes.forEach(index -> index.removeFilm(id));
+        versions.touch(id);
     }
 
     @Override
-    public Film getFilmById(Long id) {
-        String sql = "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.rating_id, r.rating_name " +
-                "FROM films AS f JOIN ratings AS r ON f.rating_id=r.rating_id WHERE film_id = ?";
-        Film film = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum), id).stream()
-                .findAny().orElseThrow(() -> new NotFoundException("Film not found"));
-        film.setGenres(genreStorage.findAllGenresByFilm(film.getId()));
-        Map<Long, Set<Director>> directorsByFilm = directorDbStorage.getDirectorsForFilms(Collections.singletonList(id));
-        film.setDirectors(directorsByFilm.getOrDefault(id, new HashSet<>()));
-        return film;
+    public FilmView getFilmById(Long id, Set<FilmField> fields) {
+        String sql = "SELECT " + filmColumns(fields) + " FROM films AS f " + ratingJoin(fields) + "WHERE f.film_id = ?";
+        List<FilmView> films = jdbcTemplate.query(sql, filmMapper(fields), id);
+        if (films.isEmpty()) {
+            throw new NotFoundException("Film not found");
+        }
+        return enrich(films, fields).get(0);
+    }
+
+    // Фильмы возвращаются в порядке запрошенных id, отсутствующие пропускаются
+    @Override
+    public List<FilmView> getFilmsByIds(Collection<Long> ids, Set<FilmField> fields) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT " + filmColumns(fields) + " FROM films AS f " + ratingJoin(fields) +
+                "WHERE f.film_id IN (" + ids.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")";
+        Map<Long, FilmView> filmsById = new HashMap<>();
+        enrich(jdbcTemplate.query(sql, filmMapper(fields)), fields).forEach(film -> filmsById.put(film.id(), film));
+        return ids.stream().map(filmsById::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     @Override
-    public List<Film> getFilmsByDirector(Long directorId, String sortBy) {
+    public List<FilmView> getFilmsByDirector(Long directorId, String sortBy, Set<FilmField> fields) {
         directorDbStorage.getById(directorId);
         StringBuilder sql = new StringBuilder(
-                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.rating_id, r.rating_name, " +
-                        "COUNT(l.user_id) AS likes " +
+                "SELECT " + filmColumns(fields) + ", COUNT(l.user_id) AS likes " +
                         "FROM films f " +
                         "INNER JOIN film_director fd ON f.film_id = fd.film_id " +
-                        "INNER JOIN ratings r ON f.rating_id = r.rating_id " +
+                        ratingJoin(fields) +
                         "LEFT JOIN films_Likes l ON f.film_id = l.film_id " +
                         "WHERE fd.director_id = ? " +
-                        "GROUP BY f.film_id, r.rating_name "
+                        "GROUP BY f.film_id "
         );
 
         if ("likes".equals(sortBy)) {
@@ -132,79 +169,83 @@ public class FilmDbStorage implements FilmStorage {
             sql.append(" ORDER BY f.release_date");
         }
 
-        List<Film> films = jdbcTemplate.query(sql.toString(), new FilmMapper(), directorId);
-
-        List<Long> filmIds = films.stream().map(Film::getId).toList();
-        Map<Long, Set<Director>> directorsByFilm = directorDbStorage.getDirectorsForFilms(filmIds);
-
-        for (Film film : films) {
-            film.setDirectors(directorsByFilm.getOrDefault(film.getId(), new HashSet<>()));
-        }
-        setFilmGenres(films);
-        return films;
+        List<FilmView> films = jdbcTemplate.query(sql.toString(), filmMapper(fields), directorId);
+        return enrich(films, fields);
     }
 
-    public Collection<Film> getPopularFilms(Integer count, Integer genreId, Integer year) {
-        String sql = "SELECT f.*, r.rating_name " +
-                "FROM films AS f JOIN ratings AS r ON f.rating_id=r.rating_id " +
+    @Override
+    public Collection<FilmView> getPopularFilms(Integer count, Integer genreId, Integer year, Set<FilmField> fields) {
+        String sql = "SELECT " + filmColumns(fields) + " FROM films AS f " + ratingJoin(fields) +
                 "LEFT JOIN films_Likes AS fl ON f.film_id = fl.film_id %s" +
                 "GROUP BY f.film_id " +
                 "ORDER BY COUNT(fl.film_id) DESC " +
                 "LIMIT ?";
-        List<Film> films = null;
+        List<FilmView> films;
         if (Objects.nonNull(year) && Objects.nonNull(genreId)) {
             sql = String.format(sql, "LEFT JOIN films_Genres AS fg ON f.film_id = fg.film_id WHERE fg.genre_id = ? AND YEAR(f.release_date) = ?");
-            films = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum), genreId, year, count);
+            films = jdbcTemplate.query(sql, filmMapper(fields), genreId, year, count);
         } else if (Objects.nonNull(genreId)) {
             sql = String.format(sql, "LEFT JOIN films_Genres AS fg ON f.film_id = fg.film_id WHERE fg.genre_id = ?");
-            films = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum), genreId, count);
+            films = jdbcTemplate.query(sql, filmMapper(fields), genreId, count);
         } else if (Objects.nonNull(year)) {
             sql = String.format(sql, "WHERE YEAR(f.release_date) = ?");
-            films = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum), year, count);
+            films = jdbcTemplate.query(sql, filmMapper(fields), year, count);
         } else {
             sql = String.format(sql, "");
-            films = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum), count);
+            films = jdbcTemplate.query(sql, filmMapper(fields), count);
         }
-        setFilmGenres(films);
-        addDirectorsToFilms(films);
-        return films;
+        return enrich(films, fields);
     }
 
-    public Collection<Film> getCommonFilms(Long userId, Long friendId) {
-        String sql = "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.rating_id, r.rating_name " +
-                "FROM films AS f JOIN ratings AS r ON f.rating_id=r.rating_id " +
+    @Override
+    public Collection<FilmView> getCommonFilms(Long userId, Long friendId, Set<FilmField> fields) {
+        String sql = "SELECT " + filmColumns(fields) + " FROM films AS f " + ratingJoin(fields) +
                 "LEFT JOIN films_Likes ON f.film_id = films_Likes.film_id " +
                 "WHERE f.film_id IN (SELECT film_id FROM films_Likes WHERE user_id = ? GROUP BY film_id) AND " +
                 "f.film_id IN (SELECT film_id FROM films_Likes WHERE user_id = ?) " +
                 "GROUP BY f.film_id " +
                 "ORDER BY COUNT(films_Likes.film_id) DESC;";
-        Collection<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum), userId, friendId);
-        return setFilmGenres(films);
+        List<FilmView> films = jdbcTemplate.query(sql, filmMapper(fields), userId, friendId);
+        return enrich(films, fields);
     }
 
     @Override
-    public List<Film> searchFilms(String query, boolean isDirector, boolean isTitle) {
-        String sql = "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.rating_id, r.rating_name " +
-                "FROM films AS f JOIN ratings AS r ON f.rating_id = r.rating_id " +
+    public List<FilmView> searchFilms(String query, boolean isDirector, boolean isTitle, Set<FilmField> fields) {
+        String sql = "SELECT " + filmColumns(fields) + " FROM films AS f " + ratingJoin(fields) +
                 "LEFT JOIN films_Likes AS fl ON f.film_id = fl.film_id %s" +
                 "GROUP BY f.film_id ORDER BY COUNT(fl.film_id) DESC";
-        List<Film> films = null;
+        List<FilmView> films = new ArrayList<>();
         if (isDirector && isTitle) {
             sql = String.format(sql, "LEFT JOIN film_director fd ON f.film_id = fd.film_id LEFT JOIN directors AS d " +
                     "ON fd.director_id = d.director_id  WHERE (d.name ILIKE CONCAT('%', ?, '%')) OR " +
                     "(f.name ILIKE CONCAT('%', ?, '%'))");
-            films = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum), query, query);
+            films = jdbcTemplate.query(sql, filmMapper(fields), query, query);
         } else if (isTitle) {
             sql = String.format(sql, "WHERE f.name ILIKE CONCAT('%', ?, '%')");
-            films = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum), query);
+            films = jdbcTemplate.query(sql, filmMapper(fields), query);
         } else if (isDirector) {
             sql = String.format(sql, "INNER JOIN film_director fd ON f.film_id = fd.film_id LEFT JOIN directors AS d " +
                     "ON fd.director_id = d.director_id WHERE d.name ILIKE CONCAT('%', ?, '%')");
-            films = jdbcTemplate.query(sql, (rs, rowNum) -> new FilmMapper().mapRow(rs, rowNum), query);
+            films = jdbcTemplate.query(sql, filmMapper(fields), query);
         }
-        setFilmGenres(films);
-        addDirectorsToFilms(films);
-        return films;
+        return enrich(films, fields);
+    }
+
+    // Ответ по фильму включает имена режиссёров, поэтому их изменения тоже меняют версию.
+    // Оба счётчика только растут, так что сумма меняется при любом изменении.
+    @Override
+    public long getVersion() {
+        return versions.get() + directorDbStorage.getVersion();
+    }
+
+    @Override
+    public long getVersion(Long id) {
+        return versions.get(id) + directorDbStorage.getVersion();
+    }
+
+    @Override
+    public VersionCounter.Changes getChangedSince(long since) {
+        return versions.changedSince(since);
     }
 
     private void updateGenres(List<Genre> genres, Long id) {
@@ -240,6 +281,104 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    // Одним запросом обновляет поля фильма и читает рейтинг, текущие связи фильма, названия запрошенных жанров
+    // и режиссёров и число лайков. При неверной ссылке исключение откатывает обновление вместе с транзакцией
+    private FilmReferences updateAndLoadReferences(Film film) {
+        String genreIds = film.getGenres() == null ? "NULL" : joinIds(film.getGenres().stream().map(Genre::getId));
+        String directorIds = film.getDirectors() == null ? "NULL"
+                : joinIds(film.getDirectors().stream().map(Director::getId));
+        String sql = "SELECT 'U' AS kind, film_id AS id, NULL AS name, FALSE AS linked FROM FINAL TABLE (" +
+                "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, rating_id = ? " +
+                "WHERE film_id = ?) " +
+                "UNION ALL SELECT 'R', rating_id, rating_name, FALSE FROM ratings WHERE rating_id = ? " +
+                "UNION ALL SELECT 'G', g.id, g.name, fg.film_id IS NOT NULL FROM genres AS g " +
+                "LEFT JOIN films_Genres AS fg ON fg.genre_id = g.id AND fg.film_id = ? " +
+                "WHERE fg.film_id IS NOT NULL OR g.id IN (" + genreIds + ") " +
+                "UNION ALL SELECT 'D', d.director_id, d.name, fd.film_id IS NOT NULL FROM directors AS d " +
+                "LEFT JOIN film_director AS fd ON fd.director_id = d.director_id AND fd.film_id = ? " +
+                "WHERE fd.film_id IS NOT NULL OR d.director_id IN (" + directorIds + ") " +
+                "UNION ALL SELECT 'L', COUNT(*), NULL, FALSE FROM films_Likes WHERE film_id = ?";
+
+        FilmReferences references = new FilmReferences();
+        jdbcTemplate.query(sql, rs -> {
+            switch (rs.getString("kind")) {
+                case "R" -> references.mpa = registry.rating(rs.getInt("id"), rs.getString("name"));
+                case "G" -> {
+                    int genreId = rs.getInt("id");
+                    references.genres.put(genreId, registry.genre(genreId, rs.getString("name")));
+                    if (rs.getBoolean("linked")) {
+                        references.linkedGenres.add(genreId);
+                    }
+                }
+                case "U" -> references.updated = true;
+                case "L" -> references.likesCount = rs.getInt("id");
+                default -> {
+                    long directorId = rs.getLong("id");
+                    references.directors.put(directorId, registry.director(directorId, rs.getString("name")));
+                    if (rs.getBoolean("linked")) {
+                        references.linkedDirectors.add(directorId);
+                    }
+                }
+            }
+        }, film.getName(), film.getDescription(), film.getReleaseDate(), film.getDuration(), film.getMpa().getId(),
+                film.getId(), film.getMpa().getId(), film.getId(), film.getId(), film.getId());
+
+        if (references.mpa == null) {
+            throw new ValidationException("Incorrect rating_id = " + film.getMpa().getId() + ".");
+        }
+        if (!references.updated) {
+            log.warn("Фильм с id = {} не найден", film.getId());
+            throw new NotFoundException("Film not found");
+        }
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                if (!references.genres.containsKey(genre.getId())) {
+                    log.warn("Жанр с id = {} не найден", genre.getId());
+                    throw new ValidationException("Incorrect genre_id = " + genre.getId() + ".");
+                }
+            }
+        }
+        if (film.getDirectors() != null) {
+            for (Director director : film.getDirectors()) {
+                if (!references.directors.containsKey(director.getId())) {
+                    throw new NotFoundException("Режиссер с ID " + director.getId() + " не найден.");
+                }
+            }
+        }
+        return references;
+    }
+
+    // Удаляет и добавляет только изменившиеся связи фильма
+    private <T> void updateLinks(String table, String column, Long filmId, Set<T> oldIds, Set<T> newIds) {
+        List<T> removed = oldIds.stream().filter(linkedId -> !newIds.contains(linkedId)).toList();
+        if (!removed.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE film_id = ? AND " + column + " IN (" +
+                    joinIds(removed.stream()) + ")", filmId);
+        }
+        List<Object[]> added = newIds.stream()
+                .filter(linkedId -> !oldIds.contains(linkedId))
+                .map(linkedId -> new Object[]{filmId, linkedId})
+                .toList();
+        if (!added.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + table + " (film_id, " + column + ") VALUES (?, ?)", added);
+        }
+    }
+
+    private static String joinIds(Stream<?> ids) {
+        String joined = ids.map(String::valueOf).collect(Collectors.joining(","));
+        return joined.isEmpty() ? "NULL" : joined;
+    }
+
+    private static class FilmReferences {
+        private boolean updated;
+        private Rating mpa;
+        private final Map<Integer, Genre> genres = new HashMap<>();
+        private final Set<Integer> linkedGenres = new LinkedHashSet<>();
+        private final Map<Long, Director> directors = new HashMap<>();
+        private final Set<Long> linkedDirectors = new LinkedHashSet<>();
+        private int likesCount;
+    }
+
     private void checkRating(int rating_id) {
         List<Rating> ratingList = ratingStorage.findAllMpa();
         for (Rating rating : ratingList) {
@@ -263,25 +402,67 @@ public class FilmDbStorage implements FilmStorage {
         throw new ValidationException("Incorrect genre_id = " + genre_id + ".");
     }
 
-    private void addDirectorsToFilms(List<Film> films) {
-        if (films.isEmpty()) {
-            return;
+    // Список колонок фильма для запрошенных полей; id выбирается всегда
+    private static String filmColumns(Set<FilmField> fields) {
+        StringJoiner columns = new StringJoiner(", ");
+        columns.add("f.film_id");
+        if (fields.contains(FilmField.NAME)) {
+            columns.add("f.name");
+        }
+        if (fields.contains(FilmField.DESCRIPTION)) {
+            columns.add("f.description");
+        }
+        if (fields.contains(FilmField.RELEASE_DATE)) {
+            columns.add("f.release_date");
         }
-        List<Long> filmIds = films.stream().map(Film::getId).toList();
-        Map<Long, Set<Director>> directorsByFilm = directorDbStorage.getDirectorsForFilms(filmIds);
+        if (fields.contains(FilmField.DURATION)) {
+            columns.add("f.duration");
+        }
+        if (fields.contains(FilmField.MPA)) {
+            columns.add("f.rating_id");
+            columns.add("r.rating_name");
+        }
+        if (fields.contains(FilmField.LIKES_COUNT)) {
+            columns.add("(SELECT COUNT(*) FROM films_Likes AS lc WHERE lc.film_id = f.film_id) AS likes_count");
+        }
+        return columns.toString();
+    }
 
-        for (Film film : films) {
-            film.setDirectors(directorsByFilm.getOrDefault(film.getId(), new HashSet<>()));
+    private ResultSetExtractor<List<FilmView>> filmMapper(Set<FilmField> fields) {
+        FilmMapper mapper = mappers.get(fields);
+        if (mapper == null) {
+            Set<FilmField> key = fields.isEmpty() ? EnumSet.noneOf(FilmField.class) : EnumSet.copyOf(fields);
+            mapper = mappers.computeIfAbsent(key, copy -> new FilmMapper(copy, registry));
         }
+        return mapper.list();
     }
 
-    private Collection<Film> setFilmGenres(Collection<Film> films) {
-        Map<Long, List<Genre>> filmGenresMap = genreStorage.findAllGenresForFilmCollection(films);
-        films.forEach(film -> {
-            Long filmId = film.getId();
-            film.setGenres(filmGenresMap.getOrDefault(filmId, new ArrayList<>()));
-        });
+    private static String ratingJoin(Set<FilmField> fields) {
+        return fields.contains(FilmField.MPA) ? "JOIN ratings AS r ON f.rating_id = r.rating_id " : "";
+    }
 
-        return films;
+    // Жанры и режиссёры всей выборки читаются двумя запросами и подставляются в новые экземпляры фильмов
+    private List<FilmView> enrich(List<FilmView> films, Set<FilmField> fields) {
+        boolean withGenres = fields.contains(FilmField.GENRES);
+        boolean withDirectors = fields.contains(FilmField.DIRECTORS);
+        if (films.isEmpty() || !withGenres && !withDirectors) {
+            return films;
+        }
+        List<Long> filmIds = films.stream().map(FilmView::id).toList();
+        Map<Long, List<Genre>> genresByFilm = withGenres
+                ? genreStorage.findAllGenresForFilmCollection(filmIds) : Map.of();
+        Map<Long, Set<Director>> directorsByFilm = withDirectors
+                ? directorDbStorage.getDirectorsForFilms(filmIds) : Map.of();
+
+        List<FilmView> enriched = new ArrayList<>(films.size());
+        for (FilmView film : films) {
+            List<Genre> genres = genresByFilm.get(film.id());
+            Set<Director> directors = directorsByFilm.get(film.id());
+            enriched.add(film.withReferences(
+                    genres == null ? FilmView.NO_GENRES : genres.stream().mapToInt(Genre::getId).toArray(),
+                    directors == null ? FilmView.NO_DIRECTORS
+                            : directors.stream().mapToLong(Director::getId).toArray()));
+        }
+        return enriched;
     }
-}
\ No newline at end of file
+}
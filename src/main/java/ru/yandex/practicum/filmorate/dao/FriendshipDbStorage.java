@@ -33,7 +33,7 @@ public class FriendshipDbStorage implements FriendStorage {
                 "INNER JOIN users AS u ON u.user_id = f.addressee_id " +
                 "WHERE f.requester_id = ? " +
                 "ORDER BY u.user_id";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new UserMapper().mapRow(rs, rowNum), id);
+        return jdbcTemplate.query(sql, UserMapper.INSTANCE.list(), id);
     }
 
     @Override
@@ -44,6 +44,6 @@ public class FriendshipDbStorage implements FriendStorage {
                 "INNER JOIN users u ON u.user_id = fr.addressee_id " +
                 "WHERE f.requester_id = ? AND fr.requester_id = ? " +
                 "AND f.addressee_id <> fr.requester_id AND fr.addressee_id <> f.requester_id";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new UserMapper().mapRow(rs, rowNum), id, otherId);
+        return jdbcTemplate.query(sql, UserMapper.INSTANCE.list(), id, otherId);
     }
 }
@@ -10,6 +10,7 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mappers.GenreMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 
 import java.util.*;
@@ -17,24 +18,28 @@ import java.util.*;
 @Component
 public class GenresDbStorage implements GenreStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final GenreMapper genreMapper;
+    private final ReferenceRegistry registry;
     private static final Logger log = LoggerFactory.getLogger(FilmController.class);
 
     @Autowired
-    public GenresDbStorage(JdbcTemplate jdbcTemplate) {
+    public GenresDbStorage(JdbcTemplate jdbcTemplate, GenreMapper genreMapper, ReferenceRegistry registry) {
         this.jdbcTemplate = jdbcTemplate;
+        this.genreMapper = genreMapper;
+        this.registry = registry;
     }
 
     @Override
     public List<Genre> findAllGenres() {
         String sql = "SELECT * FROM genres";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new GenreMapper().mapRow(rs, rowNum)).stream()
+        return jdbcTemplate.query(sql, genreMapper.list()).stream()
                 .sorted(Comparator.comparing(Genre::getId)).toList();
     }
 
     @Override
     public Genre findGenreById(int id) {
         String sql = "SELECT * FROM genres WHERE id = ?";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new GenreMapper().mapRow(rs, rowNum), id).stream()
+        return jdbcTemplate.query(sql, genreMapper.list(), id).stream()
                 .findAny().orElseThrow(() -> new NotFoundException("Genre not found"));
     }
 
@@ -42,25 +47,21 @@ public class GenresDbStorage implements GenreStorage {
     public List<Genre> findAllGenresByFilm(Long id) {
         String sql = "SELECT g.id, g.name FROM genres g JOIN films_Genres fg ON g.id = fg.genre_id " +
                 "JOIN films f ON fg.film_id = f.film_id WHERE f.FILM_ID =?";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new GenreMapper().mapRow(rs, rowNum), id);
+        return jdbcTemplate.query(sql, genreMapper.list(), id);
     }
 
     @Override
-    public Map<Long, List<Genre>> findAllGenresForFilmCollection(Collection<Film> films) {
+    public Map<Long, List<Genre>> findAllGenresForFilmCollection(Collection<Long> filmIds) {
         String sql = "SELECT fg.film_id AS film_id, g.id AS genre_id, g.name AS name from films_Genres fg " +
                 "LEFT JOIN genres g on fg.genre_id = g.id WHERE fg.film_id IN (%s)";
 
         Map<Long, List<Genre>> filmGenresMap = new HashMap<>();
-        Collection<String> ids = films.stream().map(film -> String.valueOf(film.getId())).toList();
+        Collection<String> ids = filmIds.stream().map(String::valueOf).toList();
 
+        // Колонки читаются по номерам в порядке SELECT
         jdbcTemplate.query(String.format(sql, String.join(",", ids)), rs -> {
-            Genre genre = Genre
-                    .builder()
-                    .id(rs.getInt("genre_id"))
-                    .name(rs.getString("name"))
-                    .build();
-
-            Long filmId = rs.getLong("film_id");
+            Genre genre = registry.genre(rs.getInt(2), rs.getString(3));
+            Long filmId = rs.getLong(1);
 
             filmGenresMap.putIfAbsent(filmId, new ArrayList<>());
             filmGenresMap.get(filmId).add(genre);
@@ -0,0 +1,280 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventOperation;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.LikeIndex;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Групповая запись лайков. Параллельные запросы ставят изменения в очередь, поток-лидер
+ * записывает накопленный пакет вместе с событиями ленты одной транзакцией и завершает
+ * ожидания остальных. Вызов возвращается только после коммита своего изменения.
+ * После коммита индексы лайков получают итоговую операцию каждой пары фильм-пользователь,
+ * ту же, что записана в базу, и в том же порядке, в котором коммитятся пакеты.
+ */
+@Component
+public class LikeBatchWriter {
+    static final int MAX_BATCH_SIZE = 512;
+    private static final Logger log = LoggerFactory.getLogger(LikeBatchWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<LikeIndex> likeIndexes;
+    private final Queue<PendingOperation> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean leader = new AtomicBoolean();
+    // Транзакция и обновление индексов выполняются под одной блокировкой, в том числе для writeAll
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    public LikeBatchWriter(JdbcTemplate jdbcTemplate, EventRepository eventRepository,
+                           PlatformTransactionManager transactionManager, List<LikeIndex> likeIndexes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventRepository = eventRepository;
+        this.likeIndexes = likeIndexes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Пакет содержит чужие изменения, поэтому фиксируется независимо от транзакции вызывающего
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void write(LikeOperation operation) {
+        PendingOperation pending = new PendingOperation(operation, Thread.currentThread(), new CompletableFuture<>());
+        queue.add(pending);
+        // park сразу возвращается при выставленном флаге прерывания, поэтому флаг снимается
+        // на время ожидания и восстанавливается после него, в том числе при ошибке записи пакета
+        boolean interrupted = false;
+        try {
+            // Пока лидер пишет пакет, остальные ждут и копят очередь для следующего пакета
+            while (!pending.result().isDone()) {
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                }
+                if (leader.compareAndSet(false, true)) {
+                    try {
+                        flush(drain());
+                    } finally {
+                        leader.set(false);
+                        // Очередь могла пополниться во время записи: самый старый ожидающий станет следующим
+                        // лидером, даже если запись этого пакета завершилась ошибкой
+                        PendingOperation next = queue.peek();
+                        if (next != null) {
+                            LockSupport.unpark(next.thread());
+                        }
+                    }
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    // Применяет уже свёрнутые изменения одной транзакцией: при неизвестном id не применяется ничего
+    public void writeAll(List<LikeOperation> operations) {
+        commitLock.lock();
+        try {
+            publish(transactionTemplate.execute(status -> applyAll(operations)));
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private List<PendingOperation> drain() {
+        List<PendingOperation> batch = new ArrayList<>();
+        PendingOperation pending;
+        while (batch.size() < MAX_BATCH_SIZE && (pending = queue.poll()) != null) {
+            batch.add(pending);
+        }
+        return batch;
+    }
+
+    private void flush(List<PendingOperation> batch) {
+        commitLock.lock();
+        try {
+            flushLocked(batch);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Каждое изменение пакета завершается в любом случае: иначе его поток останется ждать в write
+    private void flushLocked(List<PendingOperation> batch) {
+        Applied applied;
+        try {
+            applied = transactionTemplate.execute(status -> apply(batch.stream().map(PendingOperation::operation)
+                    .toList()));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                complete(batch.getFirst(), e);
+                return;
+            }
+            // Ошибка одного изменения не должна откатывать чужие: пакет повторяется по одному
+            log.warn("Не удалось записать пакет из {} лайков, запись по одному", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    flushLocked(List.of(batch.get(i)));
+                } catch (Error error) {
+                    batch.subList(i + 1, batch.size()).forEach(pending -> complete(pending, error));
+                    throw error;
+                }
+            }
+            return;
+        } catch (Error e) {
+            // Ошибка JVM не относится к отдельному изменению, повторять пакет бессмысленно
+            log.error("Не удалось записать пакет из {} лайков", batch.size(), e);
+            batch.forEach(pending -> complete(pending, e));
+            throw e;
+        }
+        log.trace("Записан пакет из {} лайков", batch.size());
+        publish(applied.likes());
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), applied.errors().get(i));
+        }
+    }
+
+    private static void complete(PendingOperation pending, Throwable error) {
+        if (error == null) {
+            pending.result().complete(null);
+        } else {
+            pending.result().completeExceptionally(error);
+        }
+        LockSupport.unpark(pending.thread());
+    }
+
+    private Map<LikeKey, EventOperation> applyAll(List<LikeOperation> operations) {
+        Set<Long> users = existingIds("users", "user_id", operations.stream().map(LikeOperation::getUserId));
+        Set<Long> films = existingIds("films", "film_id", operations.stream().map(LikeOperation::getFilmId));
+        String missing = operations.stream()
+                .flatMap(operation -> Stream.of(
+                        users.contains(operation.getUserId()) ? null : "user_id = " + operation.getUserId(),
+                        films.contains(operation.getFilmId()) ? null : "film_id = " + operation.getFilmId()))
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.joining(", "));
+        if (!missing.isEmpty()) {
+            throw new NotFoundException("Объекты не найдены: " + missing);
+        }
+        return writeLikes(operations);
+    }
+
+    // Возвращает ошибку для каждого изменения, не прошедшего проверку, либо null
+    private Applied apply(List<LikeOperation> operations) {
+        Set<Long> users = existingIds("users", "user_id", operations.stream().map(LikeOperation::getUserId));
+        Set<Long> films = existingIds("films", "film_id", operations.stream()
+                .filter(operation -> operation.getOp() == EventOperation.ADD)
+                .map(LikeOperation::getFilmId));
+
+        List<RuntimeException> errors = new ArrayList<>(operations.size());
+        List<LikeOperation> valid = new ArrayList<>(operations.size());
+        for (LikeOperation operation : operations) {
+            if (!users.contains(operation.getUserId())
+                    || operation.getOp() == EventOperation.ADD && !films.contains(operation.getFilmId())) {
+                errors.add(new NotFoundException("Объект не найден"));
+                continue;
+            }
+            errors.add(null);
+            valid.add(operation);
+        }
+        return new Applied(errors, writeLikes(valid));
+    }
+
+    // Возвращает итоговую операцию для каждой пары фильм-пользователь
+    private Map<LikeKey, EventOperation> writeLikes(List<LikeOperation> operations) {
+        Map<LikeKey, EventOperation> likes = new LinkedHashMap<>();
+        List<Event> events = new ArrayList<>(operations.size());
+        long timestamp = Instant.now().toEpochMilli();
+        for (LikeOperation operation : operations) {
+            // Для пары фильм-пользователь важна только последняя операция, события пишутся все
+            likes.put(new LikeKey(operation.getFilmId(), operation.getUserId()), operation.getOp());
+            events.add(Event.builder()
+                    .eventType(EventType.LIKE)
+                    .operation(operation.getOp())
+                    .userId(operation.getUserId())
+                    .entityId(operation.getFilmId())
+                    .timestamp(timestamp)
+                    .build());
+        }
+
+        batchUpdate("MERGE INTO films_Likes (film_id, user_id) KEY (film_id, user_id) VALUES (?, ?)",
+                likes, EventOperation.ADD);
+        batchUpdate("DELETE FROM films_Likes WHERE film_id = ? AND user_id = ?", likes, EventOperation.REMOVE);
+        eventRepository.createEvents(events);
+        return likes;
+    }
+
+    // Вызывается после коммита: ошибка одного индекса не мешает остальным и не отменяет записанное
+    private void publish(Map<LikeKey, EventOperation> likes) {
+        for (LikeIndex index : likeIndexes) {
+            try {
+                likes.forEach((key, op) -> {
+                    if (op == EventOperation.ADD) {
+                        index.addLike(key.filmId(), key.userId());
+                    } else {
+                        index.removeLike(key.filmId(), key.userId());
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("Не удалось обновить индекс лайков {}", index.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void batchUpdate(String sql, Map<LikeKey, EventOperation> likes, EventOperation op) {
+        List<Object[]> params = likes.entrySet().stream()
+                .filter(entry -> entry.getValue() == op)
+                .map(entry -> new Object[]{entry.getKey().filmId(), entry.getKey().userId()})
+                .toList();
+        if (!params.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, params);
+        }
+    }
+
+    private Set<Long> existingIds(String table, String column, Stream<Long> ids) {
+        String joined = ids.filter(Objects::nonNull).distinct().map(String::valueOf)
+                .collect(Collectors.joining(","));
+        if (joined.isEmpty()) {
+            return new HashSet<>();
+        }
+        String sql = "SELECT " + column + " FROM " + table + " WHERE " + column + " IN (" + joined + ")";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class));
+    }
+
+    private record LikeKey(Long filmId, Long userId) {
+    }
+
+    private record Applied(List<RuntimeException> errors, Map<LikeKey, EventOperation> likes) {
+    }
+
+    private record PendingOperation(LikeOperation operation, Thread thread, CompletableFuture<Void> result) {
+    }
+}
@@ -1,51 +1,43 @@
 package ru.yandex.practicum.filmorate.dao;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
-import ru.yandex.practicum.filmorate.controller.FilmController;
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
-import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.model.EventOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
 import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
-import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.*;
 
 @Component
 public class LikesDbStorage implements LikeStorage {
     private final JdbcTemplate jdbcTemplate;
-    @Qualifier("userDbStorage")
-    private final UserStorage userStorage;
-    @Qualifier("filmDbStorage")
-    private final FilmStorage filmStorage;
-    private static final Logger log = LoggerFactory.getLogger(FilmController.class);
-
-    public LikesDbStorage(JdbcTemplate jdbcTemplate, @Qualifier("userDbStorage") UserStorage userStorage,
-                          @Qualifier("filmDbStorage") FilmStorage filmStorage) {
+    private final LikeBatchWriter likeBatchWriter;
+    private final VersionCounter versions = new VersionCounter();
+
+    public LikesDbStorage(JdbcTemplate jdbcTemplate, LikeBatchWriter likeBatchWriter) {
         this.jdbcTemplate = jdbcTemplate;
-        this.userStorage = userStorage;
-        this.filmStorage = filmStorage;
+        this.likeBatchWriter = likeBatchWriter;
     }
 
+    // Проверка пользователя и фильма, запись лайка и события выполняются пакетно в LikeBatchWriter.
+    // Он же обновляет индексы лайков после коммита, запись коммитится до возврата.
     @Override
     public void addLike(Long id, Long userId) {
-        try {
-            userStorage.getUserById(userId);
-            filmStorage.getFilmById(id);
-        } catch (NotFoundException e) {
-            throw new NotFoundException("Объект не найден");
-        }
-
-        String sql = "INSERT INTO films_Likes (film_id, user_id) VALUES (?,?)";
-        jdbcTemplate.update(sql, id, userId);
+        likeBatchWriter.write(new LikeOperation(id, userId, EventOperation.ADD));
+        versions.touch(id);
     }
 
     @Override
     public void removeLike(Long id, Long userId) {
-        String sql = "DELETE FROM films_Likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, id, userId);
+        likeBatchWriter.write(new LikeOperation(id, userId, EventOperation.REMOVE));
+        versions.touch(id);
+    }
+
+    @Override
+    public void applyLikes(List<LikeOperation> operations) {
+        likeBatchWriter.writeAll(operations);
+        operations.forEach(operation -> versions.touch(operation.getFilmId()));
     }
 
     @Override
@@ -54,8 +46,20 @@ public class LikesDbStorage implements LikeStorage {
         return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, filmId));
     }
 
-    public Set<Long> getUsersFilmLikes(Long userId) {
-        String sql = "SELECT film_id FROM films_Likes WHERE user_id = ?";
-        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, userId));
+    // Постраничное чтение идёт по первичному ключу (film_id, user_id) без OFFSET
+    @Override
+    public List<Long> getLikes(Long filmId, long afterUserId, int count) {
+        String sql = "SELECT user_id FROM films_Likes WHERE film_id = ? AND user_id > ? ORDER BY user_id LIMIT ?";
+        return jdbcTemplate.queryForList(sql, Long.class, filmId, afterUserId, count);
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(Long filmId) {
+        return versions.get(filmId);
     }
 }
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.yandex.practicum.filmorate.tracing.Span;
+import ru.yandex.practicum.filmorate.tracing.Tracer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Источник данных, который учитывает запросы в {@link QueryStats} текущего HTTP-запроса
+ * и открывает на каждый запрос участок трассировки. Вне HTTP-запроса соединения отдаются без обёртки.
+ * Подключается QueryStatsConfig при filmorate.sql.query-stats.enabled=true.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        if (QueryStats.current() == null) {
+            return connection;
+        }
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> wrap(Statement.class, (Statement) result, null);
+                case "prepareStatement" -> wrap(PreparedStatement.class, (Statement) result, (String) args[0]);
+                case "prepareCall" -> wrap(CallableStatement.class, (Statement) result, (String) args[0]);
+                default -> result;
+            };
+        });
+    }
+
+    private static <T extends Statement> T wrap(Class<T> type, Statement statement, String preparedSql) {
+        return proxy(type, statement, (proxy, method, args) -> {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                Object result = invoke(statement, method, args);
+                return name.equals("getResultSet") ? wrap((ResultSet) result) : result;
+            }
+
+            QueryStats stats = QueryStats.current();
+            if (stats == null) {
+                return invoke(statement, method, args);
+            }
+            String sql = preparedSql != null || args == null || args.length == 0 ? preparedSql : (String) args[0];
+            Span span = Tracer.startChild(name, "jdbc", sql);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(statement, method, args);
+            } finally {
+                if (span != null) {
+                    Tracer.finish(span);
+                }
+            }
+            stats.recordStatement(sql == null ? name : sql, System.nanoTime() - start);
+
+            if (result instanceof ResultSet resultSet) {
+                return wrap(resultSet);
+            } else if (result instanceof Number count) {
+                stats.recordRows(Math.max(count.longValue(), 0));
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    stats.recordRows(Math.max(count, 0));
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    stats.recordRows(Math.max(count, 0));
+                }
+            }
+            return result;
+        });
+    }
+
+    private static ResultSet wrap(ResultSet resultSet) {
+        QueryStats stats = QueryStats.current();
+        if (resultSet == null || stats == null) {
+            return resultSet;
+        }
+        return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                stats.recordRowRead();
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> target.toString();
+                    default -> handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Счётчики SQL-запросов, выполненных при обработке одного HTTP-запроса.
+ * Привязываются к потоку запроса на время обработки: их ставит и снимает QueryStatsInterceptor.
+ * Запросы из потоков, которые запускает обработчик, не учитываются.
+ */
+public class QueryStats {
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    private static final Pattern NUMBER = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final Map<String, LongAdder> executions = new ConcurrentHashMap<>();
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    void recordStatement(String sql, long elapsedNanos) {
+        statements.increment();
+        nanos.add(elapsedNanos);
+        executions.computeIfAbsent(sql, key -> new LongAdder()).increment();
+    }
+
+    void recordRows(long count) {
+        rows.add(count);
+    }
+
+    void recordRowRead() {
+        rows.increment();
+        rowsRead.increment();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    // Только строки, прочитанные из ResultSet, без учёта изменённых
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    public long getMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+    }
+
+    /**
+     * Возвращает запросы одинаковой формы, выполненные не менее threshold раз.
+     * Числовые литералы и списки IN приводятся к одному виду, поэтому
+     * запросы с подставленными в текст id тоже считаются повторами.
+     */
+    public Map<String, Long> getRepeatedStatements(int threshold) {
+        Map<String, Long> shapes = new LinkedHashMap<>();
+        executions.forEach((sql, count) -> shapes.merge(shapeOf(sql), count.sum(), Long::sum));
+        shapes.values().removeIf(count -> count < threshold);
+        return shapes;
+    }
+
+    static String shapeOf(String sql) {
+        String shape = NUMBER.matcher(sql).replaceAll("?");
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
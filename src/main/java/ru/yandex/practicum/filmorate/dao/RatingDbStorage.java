@@ -13,22 +13,24 @@ import java.util.List;
 @Component
 public class RatingDbStorage implements RatingStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final RatingMapper ratingMapper;
 
     @Autowired
-    public RatingDbStorage(JdbcTemplate jdbcTemplate) {
+    public RatingDbStorage(JdbcTemplate jdbcTemplate, RatingMapper ratingMapper) {
         this.jdbcTemplate = jdbcTemplate;
+        this.ratingMapper = ratingMapper;
     }
 
     @Override
     public List<Rating> findAllMpa() {
         String sql = "SELECT * FROM ratings";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new RatingMapper().mapRow(rs, rowNum));
+        return jdbcTemplate.query(sql, ratingMapper.list());
     }
 
     @Override
     public Rating findMpaById(int id) {
         String sql = "SELECT * FROM ratings WHERE rating_id = ?";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new RatingMapper().mapRow(rs, rowNum), id).stream()
+        return jdbcTemplate.query(sql, ratingMapper.list(), id).stream()
                 .findAny().orElseThrow(() -> new NotFoundException("Rating not found"));
     }
 }
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class RecommendationDbStorage implements RecommendationStorage {
+    private final JdbcTemplate jdbcTemplate;
+
+    public RecommendationDbStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> getRecommendations(long userId) {
+        String sql = "SELECT film_id FROM user_recommendations WHERE user_id = ? ORDER BY ordinal";
+        return jdbcTemplate.queryForList(sql, Long.class, userId);
+    }
+
+    @Override
+    public void deleteAll() {
+        jdbcTemplate.update("DELETE FROM user_recommendations");
+    }
+
+    @Override
+    public void saveAll(long[] userIds, long[][] filmIds) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < userIds.length; i++) {
+            for (int ordinal = 0; ordinal < filmIds[i].length; ordinal++) {
+                rows.add(new Object[]{userIds[i], ordinal, filmIds[i][ordinal]});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO user_recommendations (user_id, ordinal, film_id) VALUES (?, ?, ?)",
+                rows);
+    }
+}
@@ -14,6 +14,7 @@ import ru.yandex.practicum.filmorate.mappers.GradeReviewMapper;
 import ru.yandex.practicum.filmorate.mappers.ReviewMapper;
 import ru.yandex.practicum.filmorate.model.GradeReview;
 import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
@@ -26,6 +27,7 @@ public class ReviewDbStorage {
     private final JdbcTemplate jdbc;
     private final ReviewMapper mapperReview;
     private final GradeReviewMapper mapperGrade;
+    private final VersionCounter versions = new VersionCounter();
 
     public Optional<Review> getReviewById(Long id) {
         try {
@@ -43,6 +45,7 @@ public class ReviewDbStorage {
             Long id = insert(sql, review.getContent(), Review.getStringType(review.getIsPositive()),
                     review.getUserId(), review.getFilmId());
             review.setReviewId(id);
+            versions.touch(id);
             return review;
         } catch (DuplicateKeyException exception) {
             throw new DuplicatedDataException("Пользователь с id = " + review.getUserId() + " уже оставил отзыв к " +
@@ -58,6 +61,7 @@ public class ReviewDbStorage {
             if (rowsUpdated == 0) {
                 throw new ServerErrorException("Не удалось обновить данные");
             }
+            versions.touch(review.getReviewId());
             return getReviewById(review.getReviewId()).get();
         } catch (DuplicateKeyException exp) {
             throw new DuplicatedDataException("Пользователь с id = " + review.getUserId() + " уже оставил отзыв к " +
@@ -70,18 +74,19 @@ public class ReviewDbStorage {
     public List<Review> getAll(int count) {
         String sql = "SELECT id, content, type, user_id, film_id, usefulness_rating FROM reviews ORDER BY " +
                 "usefulness_rating DESC LIMIT ?";
-        return jdbc.query(sql, mapperReview, count);
+        return jdbc.query(sql, mapperReview.list(), count);
     }
 
     public List<Review> getFilmReviews(Long id, int count) {
         String sql = "SELECT id, content, type, user_id, film_id, usefulness_rating FROM reviews WHERE film_id = ? " +
                 "ORDER BY usefulness_rating DESC LIMIT ?";
-        return jdbc.query(sql, mapperReview, id, count);
+        return jdbc.query(sql, mapperReview.list(), id, count);
     }
 
     public boolean deleteReview(Long id) {
         String sql = "DELETE FROM reviews WHERE id = ?";
         int rowDeleted = jdbc.update(sql, id);
+        versions.touch(id);
         return rowDeleted > 0;
     }
 
@@ -91,6 +96,7 @@ public class ReviewDbStorage {
         if (rowsUpdated == 0) {
             throw new ServerErrorException("Не удалось обновить данные");
         }
+        versions.touch(id);
     }
 
     public void decreaseUseful(int count, Long id) {
@@ -99,6 +105,7 @@ public class ReviewDbStorage {
         if (rowsUpdated == 0) {
             throw new ServerErrorException("Не удалось обновить данные");
         }
+        versions.touch(id);
     }
 
     public void addGradeReview(Long reviewID, Long userId, String grade) {
@@ -132,6 +139,13 @@ public class ReviewDbStorage {
         }
     }
 
+    public long getVersion() {
+        return versions.get();
+    }
+
+    public long getVersion(Long id) {
+        return versions.get(id);
+    }
 
     private long insert(String query, Object... params) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
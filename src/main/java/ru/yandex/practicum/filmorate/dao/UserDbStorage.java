@@ -10,17 +10,26 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.mappers.UserMapper;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Component("userDbStorage")
 public class UserDbStorage implements UserStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final List<LikeIndex> likeIndexes;
+    private final VersionCounter versions = new VersionCounter();
     private static final Logger log = LoggerFactory.getLogger(UserStorage.class);
 
     @Override
@@ -44,6 +53,8 @@ public class UserDbStorage implements UserStorage {
     public void deleteUserById(Long id) {
         String sql = "DELETE FROM users WHERE user_id = ?";
         jdbcTemplate.update(sql, id);
+        likeIndexes.forEach(index -> index.removeUser(id));
+        versions.touch(id);
     }
 
     @Override
@@ -57,19 +68,42 @@ public class UserDbStorage implements UserStorage {
 
         String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE user_id = ?";
         jdbcTemplate.update(sql, user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(), user.getId());
+        versions.touch(user.getId());
         return user;
     }
 
     @Override
     public Collection<User> findAll() {
         String sql = "SELECT user_id, login, name, email, birthday FROM users";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new UserMapper().mapRow(rs, rowNum));
+        return jdbcTemplate.query(sql, UserMapper.INSTANCE.list());
     }
 
     @Override
     public User getUserById(Long id) {
         String sql = "SELECT * FROM users WHERE user_id = ?";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new UserMapper().mapRow(rs, rowNum), id).stream()
+        return jdbcTemplate.query(sql, UserMapper.INSTANCE.list(), id).stream()
                 .findAny().orElseThrow(() -> new NotFoundException("User not found"));
     }
+
+    @Override
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT user_id, login, name, email, birthday FROM users WHERE user_id IN (" +
+                ids.stream().map(String::valueOf).collect(Collectors.joining(",")) + ")";
+        Map<Long, User> usersById = new HashMap<>();
+        jdbcTemplate.query(sql, UserMapper.INSTANCE.list()).forEach(user -> usersById.put(user.getId(), user));
+        return ids.stream().map(usersById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(Long id) {
+        return versions.get(id);
+    }
 }
@@ -1,7 +1,8 @@
 package ru.yandex.practicum.filmorate.exception;
 
 public class NotFoundException extends RuntimeException {
+    // Исключения предметной области создаются без стека: они ожидаемы и часто используются для ветвления
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
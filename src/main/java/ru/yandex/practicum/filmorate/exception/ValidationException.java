@@ -2,6 +2,6 @@ package ru.yandex.practicum.filmorate.exception;
 
 public class ValidationException extends RuntimeException {
     public ValidationException(String msg) {
-        super(msg);
+        super(msg, null, false, false);
     }
 }
\ No newline at end of file
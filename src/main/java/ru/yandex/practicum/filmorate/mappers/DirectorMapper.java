@@ -1,17 +1,23 @@
 package ru.yandex.practicum.filmorate.mappers;
 
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
 import ru.yandex.practicum.filmorate.model.Director;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-public class DirectorMapper implements RowMapper<Director> {
+@Component
+public class DirectorMapper extends IndexedRowMapper<Director> {
+    private final ReferenceRegistry registry;
+
+    public DirectorMapper(ReferenceRegistry registry) {
+        super("director_id", "name");
+        this.registry = registry;
+    }
+
     @Override
-    public Director mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return Director.builder()
-                .id(rs.getLong("director_id"))
-                .name(rs.getString("name"))
-                .build();
+    protected Director mapRow(ResultSet rs, int[] columns) throws SQLException {
+        return registry.director(rs.getLong(columns[0]), rs.getString(columns[1]));
     }
-}
\ No newline at end of file
+}
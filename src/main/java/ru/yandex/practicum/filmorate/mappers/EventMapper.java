@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.mappers;
 
-import org.springframework.jdbc.core.RowMapper;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.EventOperation;
 import ru.yandex.practicum.filmorate.model.EventType;
@@ -8,16 +7,22 @@ import ru.yandex.practicum.filmorate.model.EventType;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-public class EventMapper implements RowMapper<Event> {
+public class EventMapper extends IndexedRowMapper<Event> {
+    public static final EventMapper INSTANCE = new EventMapper();
+
+    private EventMapper() {
+        super("event_id", "user_id", "entity_id", "event_type", "operation", "timestamp");
+    }
+
     @Override
-    public Event mapRow(ResultSet rs, int rowNum) throws SQLException {
+    protected Event mapRow(ResultSet rs, int[] columns) throws SQLException {
         return Event.builder()
-                .eventId(rs.getLong("event_id"))
-                .userId(rs.getLong("user_id"))
-                .entityId(rs.getLong("entity_id"))
-                .eventType(EventType.valueOf(rs.getString("event_type")))
-                .operation(EventOperation.valueOf(rs.getString("operation")))
-                .timestamp(rs.getLong("timestamp"))
+                .eventId(rs.getLong(columns[0]))
+                .userId(rs.getLong(columns[1]))
+                .entityId(rs.getLong(columns[2]))
+                .eventType(EventType.valueOf(rs.getString(columns[3])))
+                .operation(EventOperation.valueOf(rs.getString(columns[4])))
+                .timestamp(rs.getLong(columns[5]))
                 .build();
     }
 }
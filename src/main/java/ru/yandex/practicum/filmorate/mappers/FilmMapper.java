@@ -1,21 +1,53 @@
 package ru.yandex.practicum.filmorate.mappers;
 
-import org.springframework.jdbc.core.RowMapper;
-import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Rating;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Set;
+
+// Жанры и режиссёры читаются отдельными запросами, поэтому маппер заполняет их пустыми массивами
+public class FilmMapper extends IndexedRowMapper<FilmView> {
+    private static final int ID = 0;
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int RELEASE_DATE = 3;
+    private static final int DURATION = 4;
+    private static final int RATING_ID = 5;
+    private static final int RATING_NAME = 6;
+    private static final int LIKES_COUNT = 7;
+
+    private final Set<FilmField> fields;
+    private final ReferenceRegistry registry;
+
+    public FilmMapper(Set<FilmField> fields, ReferenceRegistry registry) {
+        super("film_id",
+                fields.contains(FilmField.NAME) ? "name" : null,
+                fields.contains(FilmField.DESCRIPTION) ? "description" : null,
+                fields.contains(FilmField.RELEASE_DATE) ? "release_date" : null,
+                fields.contains(FilmField.DURATION) ? "duration" : null,
+                fields.contains(FilmField.MPA) ? "rating_id" : null,
+                fields.contains(FilmField.MPA) ? "rating_name" : null,
+                fields.contains(FilmField.LIKES_COUNT) ? "likes_count" : null);
+        this.fields = fields;
+        this.registry = registry;
+    }
 
-public class FilmMapper implements RowMapper<Film> {
     @Override
-    public Film mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return Film.builder()
-                .id(rs.getLong("film_id"))
-                .name(rs.getString("name"))
-                .description(rs.getString("description"))
-                .releaseDate(rs.getDate("release_date").toLocalDate())
-                .duration(rs.getInt("duration"))
-                .mpa(new RatingMapper().mapRow(rs, rowNum))
-                .build();
+    protected FilmView mapRow(ResultSet rs, int[] columns) throws SQLException {
+        String name = fields.contains(FilmField.NAME) ? rs.getString(columns[NAME]) : null;
+        String description = fields.contains(FilmField.DESCRIPTION) ? rs.getString(columns[DESCRIPTION]) : null;
+        LocalDate releaseDate = fields.contains(FilmField.RELEASE_DATE)
+                ? rs.getObject(columns[RELEASE_DATE], LocalDate.class) : null;
+        int duration = fields.contains(FilmField.DURATION) ? rs.getInt(columns[DURATION]) : 0;
+        Rating mpa = fields.contains(FilmField.MPA)
+                ? registry.rating(rs.getInt(columns[RATING_ID]), rs.getString(columns[RATING_NAME])) : null;
+        int likesCount = fields.contains(FilmField.LIKES_COUNT) ? rs.getInt(columns[LIKES_COUNT]) : 0;
+        return new FilmView(rs.getLong(columns[ID]), name, description, releaseDate, duration, mpa,
+                FilmView.NO_GENRES, FilmView.NO_DIRECTORS, likesCount, fields);
     }
 }
@@ -1,17 +1,23 @@
 package ru.yandex.practicum.filmorate.mappers;
 
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-public class GenreMapper implements RowMapper<Genre> {
+@Component
+public class GenreMapper extends IndexedRowMapper<Genre> {
+    private final ReferenceRegistry registry;
+
+    public GenreMapper(ReferenceRegistry registry) {
+        super("id", "name");
+        this.registry = registry;
+    }
+
     @Override
-    public Genre mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return Genre.builder()
-                .id(rs.getInt("id"))
-                .name(rs.getString("name"))
-                .build();
+    protected Genre mapRow(ResultSet rs, int[] columns) throws SQLException {
+        return registry.genre(rs.getInt(columns[0]), rs.getString(columns[1]));
     }
 }
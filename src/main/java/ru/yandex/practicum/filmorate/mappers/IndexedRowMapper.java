@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.mappers;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Маппер, который ищет колонки по имени один раз на ResultSet, а не на каждой строке.
+ * Списки читаются через {@link #list()}; как обычный RowMapper, например в queryForObject,
+ * маппер разрешает колонки на каждой строке заново. Наследники не хранят состояния
+ * и используются как синглтоны.
+ */
+public abstract class IndexedRowMapper<T> implements RowMapper<T> {
+    private final String[] columns;
+    private final ResultSetExtractor<List<T>> listExtractor = this::extractList;
+
+    // Колонка null не читается маппером и не ищется в ResultSet
+    protected IndexedRowMapper(String... columns) {
+        this.columns = columns;
+    }
+
+    public ResultSetExtractor<List<T>> list() {
+        return listExtractor;
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return mapRow(rs, indexesOf(rs));
+    }
+
+    /**
+     * Читает строку по номерам колонок, которые идут в порядке имён из конструктора.
+     */
+    protected abstract T mapRow(ResultSet rs, int[] columns) throws SQLException;
+
+    private List<T> extractList(ResultSet rs) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        if (!rs.next()) {
+            return rows;
+        }
+        int[] indexes = indexesOf(rs);
+        do {
+            rows.add(mapRow(rs, indexes));
+        } while (rs.next());
+        return rows;
+    }
+
+    private int[] indexesOf(ResultSet rs) throws SQLException {
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) {
+                indexes[i] = rs.findColumn(columns[i]);
+            }
+        }
+        return indexes;
+    }
+}
@@ -1,17 +1,23 @@
 package ru.yandex.practicum.filmorate.mappers;
 
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
 import ru.yandex.practicum.filmorate.model.Rating;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-public class RatingMapper implements RowMapper<Rating> {
+@Component
+public class RatingMapper extends IndexedRowMapper<Rating> {
+    private final ReferenceRegistry registry;
+
+    public RatingMapper(ReferenceRegistry registry) {
+        super("rating_id", "rating_name");
+        this.registry = registry;
+    }
+
     @Override
-    public Rating mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return Rating.builder()
-                .id(rs.getInt("rating_id"))
-                .name(rs.getString("rating_name"))
-                .build();
+    protected Rating mapRow(ResultSet rs, int[] columns) throws SQLException {
+        return registry.rating(rs.getInt(columns[0]), rs.getString(columns[1]));
     }
 }
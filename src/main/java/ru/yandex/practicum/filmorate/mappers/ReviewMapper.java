@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.mappers;
 
-import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Review;
 
@@ -8,16 +7,21 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 @Component
-public class ReviewMapper implements RowMapper<Review> {
+public class ReviewMapper extends IndexedRowMapper<Review> {
+
+    public ReviewMapper() {
+        super("id", "content", "type", "user_id", "film_id", "usefulness_rating");
+    }
+
     @Override
-    public Review mapRow(ResultSet rs, int rowNum) throws SQLException {
+    protected Review mapRow(ResultSet rs, int[] columns) throws SQLException {
         return Review.builder()
-                .reviewId(rs.getLong("id"))
-                .content(rs.getString("content"))
-                .isPositive(Review.getBooleanType(rs.getString("type")))
-                .userId(rs.getLong("user_id"))
-                .filmId(rs.getLong("film_id"))
-                .useful(rs.getLong("usefulness_rating"))
+                .reviewId(rs.getLong(columns[0]))
+                .content(rs.getString(columns[1]))
+                .isPositive(Review.getBooleanType(rs.getString(columns[2])))
+                .userId(rs.getLong(columns[3]))
+                .filmId(rs.getLong(columns[4]))
+                .useful(rs.getLong(columns[5]))
                 .build();
     }
 }
@@ -1,20 +1,26 @@
 package ru.yandex.practicum.filmorate.mappers;
 
-import org.springframework.jdbc.core.RowMapper;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
+
+public class UserMapper extends IndexedRowMapper<User> {
+    public static final UserMapper INSTANCE = new UserMapper();
+
+    private UserMapper() {
+        super("user_id", "email", "login", "name", "birthday");
+    }
 
-public class UserMapper implements RowMapper<User> {
     @Override
-    public User mapRow(ResultSet rs, int rowNum) throws SQLException {
+    protected User mapRow(ResultSet rs, int[] columns) throws SQLException {
         return User.builder()
-                .id(rs.getLong("user_id"))
-                .email(rs.getString("email"))
-                .login(rs.getString("login"))
-                .name(rs.getString("name"))
-                .birthday(rs.getDate("birthday").toLocalDate())
+                .id(rs.getLong(columns[0]))
+                .email(rs.getString(columns[1]))
+                .login(rs.getString(columns[2]))
+                .name(rs.getString(columns[3]))
+                .birthday(rs.getObject(columns[4], LocalDate.class))
                 .build();
     }
 }
@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dao.QueryStats;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики приложения: задержки обработчиков HTTP и методов хранилищ, счётчики SQL,
+ * попаданий, промахов и вытеснений кэшей и объём выделенной JVM памяти. Выводятся в текстовом формате Prometheus.
+ */
+@Component
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final Map<String, LatencyHistogram> requestLatency = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> storageLatency = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> cacheHits = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> cacheMisses = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> cacheEvictions = new ConcurrentHashMap<>();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rowsMapped = new LongAdder();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long lastAllocatedBytes;
+    private long lastScrapeNanos = System.nanoTime();
+
+    public LatencyHistogram requestLatency(String handler) {
+        return requestLatency.computeIfAbsent(handler, key -> new LatencyHistogram());
+    }
+
+    public LatencyHistogram storageLatency(String method) {
+        return storageLatency.computeIfAbsent(method, key -> new LatencyHistogram());
+    }
+
+    public void recordCacheHit(String cache) {
+        cacheHits.computeIfAbsent(cache, key -> new LongAdder()).increment();
+    }
+
+    // Доля попаданий считается по паре счётчиков: hits / (hits + misses)
+    public void recordCacheMiss(String cache) {
+        cacheMisses.computeIfAbsent(cache, key -> new LongAdder()).increment();
+    }
+
+    public void recordCacheEviction(String cache) {
+        cacheEvictions.computeIfAbsent(cache, key -> new LongAdder()).increment();
+    }
+
+    public void recordQueries(QueryStats stats) {
+        statements.add(stats.getStatements());
+        rowsMapped.add(stats.getRowsRead());
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        writeSummary(out, "filmorate_http_request_seconds", "Время обработки HTTP-запроса",
+                "handler", requestLatency);
+        writeSummary(out, "filmorate_storage_call_seconds", "Время вызова метода хранилища",
+                "method", storageLatency);
+
+        writeCounters(out, "filmorate_cache_hits_total", "Попадания в кэш", cacheHits);
+        writeCounters(out, "filmorate_cache_misses_total", "Промахи кэша", cacheMisses);
+        writeCounters(out, "filmorate_cache_evictions_total", "Записи, вытесненные из кэша при переполнении",
+                cacheEvictions);
+        writeHeader(out, "filmorate_sql_statements_total", "Выполненные SQL-запросы", "counter");
+        out.append("filmorate_sql_statements_total ").append(statements.sum()).append('\n');
+        writeHeader(out, "filmorate_sql_rows_mapped_total", "Строки, прочитанные из результатов запросов",
+                "counter");
+        out.append("filmorate_sql_rows_mapped_total ").append(rowsMapped.sum()).append('\n');
+
+        long allocatedBytes = threads.getTotalThreadAllocatedBytes();
+        writeHeader(out, "jvm_allocated_bytes_total", "Память, выделенная в куче всеми потоками", "counter");
+        out.append("jvm_allocated_bytes_total ").append(allocatedBytes).append('\n');
+        writeHeader(out, "jvm_allocation_rate_bytes_per_second",
+                "Скорость выделения памяти с предыдущего опроса", "gauge");
+        out.append("jvm_allocation_rate_bytes_per_second ").append(allocationRate(allocatedBytes)).append('\n');
+        return out.toString();
+    }
+
+    private synchronized long allocationRate(long allocatedBytes) {
+        long now = System.nanoTime();
+        long elapsed = now - lastScrapeNanos;
+        long rate = lastAllocatedBytes == 0 || elapsed <= 0 || allocatedBytes < 0
+                ? 0
+                : (long) ((allocatedBytes - lastAllocatedBytes) * NANOS_PER_SECOND / elapsed);
+        lastAllocatedBytes = allocatedBytes;
+        lastScrapeNanos = now;
+        return rate;
+    }
+
+    private static void writeSummary(StringBuilder out, String name, String help, String label,
+                                     Map<String, LatencyHistogram> histograms) {
+        writeHeader(out, name, help, "summary");
+        new TreeMap<>(histograms).forEach((key, histogram) -> {
+            long[] values = histogram.getValuesAtQuantiles(QUANTILES);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                out.append(name).append('{').append(label).append("=\"").append(key)
+                        .append("\",quantile=\"").append(QUANTILES[i]).append("\"} ")
+                        .append(values[i] / NANOS_PER_SECOND).append('\n');
+            }
+            out.append(name).append("_sum{").append(label).append("=\"").append(key).append("\"} ")
+                    .append(histogram.getSum() / NANOS_PER_SECOND).append('\n');
+            out.append(name).append("_count{").append(label).append("=\"").append(key).append("\"} ")
+                    .append(histogram.getCount()).append('\n');
+        });
+    }
+
+    private static void writeCounters(StringBuilder out, String name, String help, Map<String, LongAdder> counters) {
+        writeHeader(out, name, help, "counter");
+        new TreeMap<>(counters).forEach((cache, count) ->
+                out.append(name).append("{cache=\"").append(cache).append("\"} ").append(count.sum()).append('\n'));
+    }
+
+    private static void writeHeader(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Записывает время вызова методов хранилищ в {@link MetricsRegistry}.
+ */
+public class StorageMetricsInterceptor implements MethodInterceptor {
+    private final MetricsRegistry metricsRegistry;
+    // Гистограмма ищется по Method, чтобы не собирать имя метрики при каждом вызове
+    private final Map<Method, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public StorageMetricsInterceptor(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            histogramFor(invocation).record(System.nanoTime() - start);
+        }
+    }
+
+    private LatencyHistogram histogramFor(MethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        LatencyHistogram histogram = histograms.get(method);
+        if (histogram == null) {
+            String name = invocation.getThis().getClass().getSimpleName() + "." + method.getName();
+            histogram = histograms.computeIfAbsent(method, key -> metricsRegistry.storageLatency(name));
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequest {
+    private String method = "GET";
+    private String path;
+    // Заголовки только этого подзапроса, например If-None-Match с его ETag
+    private Map<String, String> headers;
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BatchResponse {
+    private String path;
+    private int status;
+    // Тело ответа уже сериализовано в JSON в потоке, выполнявшем подзапрос
+    @JsonRawValue
+    private String body;
+    // ETag подзапроса для If-None-Match в следующих пакетах
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String etag;
+}
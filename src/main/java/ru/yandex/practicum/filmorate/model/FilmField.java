@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.model;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum FilmField {
+    ID("id"),
+    NAME("name"),
+    DESCRIPTION("description"),
+    RELEASE_DATE("releaseDate"),
+    DURATION("duration"),
+    LIKES_COUNT("likesCount"),
+    GENRES("genres"),
+    MPA("mpa"),
+    DIRECTORS("directors");
+
+    public static final Set<FilmField> ALL = Collections.unmodifiableSet(EnumSet.allOf(FilmField.class));
+
+    private final String property;
+
+    FilmField(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    // Пустой список полей означает полное представление фильма, id возвращается всегда
+    public static Set<FilmField> parse(Collection<String> properties) {
+        if (properties == null || properties.isEmpty()) {
+            return ALL;
+        }
+        Set<FilmField> fields = EnumSet.of(ID);
+        for (String property : properties) {
+            fields.add(fromProperty(property.trim()));
+        }
+        return fields;
+    }
+
+    private static FilmField fromProperty(String property) {
+        for (FilmField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new ValidationException("Неизвестное поле фильма: " + property);
+    }
+}
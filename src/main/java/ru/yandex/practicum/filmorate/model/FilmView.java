@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Неизменяемое компактное представление фильма для чтения. Жанры и режиссёры хранятся массивами id,
+ * вместо множества лайкнувших пользователей хранится их число, рейтинг ссылается на общий экземпляр
+ * из ReferenceRegistry. Массивы после создания не изменяются, поэтому представление можно держать
+ * в кэше и отдавать нескольким запросам без копирования.
+ *
+ * <p>fields — поля, прочитанные из хранилища. FilmViewSerializer выводит только их,
+ * а имена жанров и режиссёров берёт из реестра.
+ */
+public record FilmView(long id, String name, String description, LocalDate releaseDate, int duration, Rating mpa,
+                       int[] genreIds, long[] directorIds, int likesCount, Set<FilmField> fields) {
+    public static final int[] NO_GENRES = new int[0];
+    public static final long[] NO_DIRECTORS = new long[0];
+
+    public FilmView withReferences(int[] genreIds, long[] directorIds) {
+        return new FilmView(id, name, description, releaseDate, duration, mpa, genreIds, directorIds, likesCount,
+                fields);
+    }
+
+    public static FilmView of(Film film, Set<FilmField> fields) {
+        int[] genreIds = film.getGenres() == null ? NO_GENRES
+                : film.getGenres().stream().mapToInt(Genre::getId).distinct().toArray();
+        long[] directorIds = film.getDirectors() == null ? NO_DIRECTORS
+                : film.getDirectors().stream().mapToLong(Director::getId).toArray();
+        return new FilmView(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration() == null ? 0 : film.getDuration(), film.getMpa(), genreIds, directorIds,
+                film.getUserLikesIdSet() == null ? 0 : film.getUserLikesIdSet().size(), fields);
+    }
+}
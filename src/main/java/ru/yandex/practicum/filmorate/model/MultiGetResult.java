@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@AllArgsConstructor
+public class MultiGetResult<T> {
+    public static final int MAX_IDS = 100;
+
+    private List<T> items;
+    private List<Long> missing;
+
+    public static Set<Long> uniqueIds(List<Long> ids) {
+        if (ids.size() > MAX_IDS) {
+            throw new ValidationException("За один запрос можно получить не более " + MAX_IDS + " объектов");
+        }
+        return ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    public static <T> MultiGetResult<T> of(Collection<Long> ids, List<T> items, Function<T, Long> idGetter) {
+        Set<Long> foundIds = items.stream().map(idGetter).collect(Collectors.toSet());
+        List<Long> missing = ids.stream().filter(id -> !foundIds.contains(id)).toList();
+        return new MultiGetResult<>(items, missing);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.time.LocalDate;
+
+/**
+ * Пользователь в ответах API. В отличие от {@link User} не содержит множества id друзей,
+ * которое могло разрастаться вместе с числом друзей; друзья отдаются через GET /users/{id}/friends.
+ */
+public record UserView(long id, String email, String login, String name, LocalDate birthday) {
+
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday());
+    }
+}
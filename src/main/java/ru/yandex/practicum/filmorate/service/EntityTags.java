@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Строит значения ETag из версий хранилищ. Метка запуска отличает версии
+ * разных запусков приложения, счётчики которых начинаются заново.
+ */
+public final class EntityTags {
+    private static final String START = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private EntityTags() {
+    }
+
+    public static String of(long... versions) {
+        return START + "-" + Arrays.stream(versions)
+                .mapToObj(v -> Long.toString(v, Character.MAX_RADIX))
+                .collect(Collectors.joining("-"));
+    }
+}
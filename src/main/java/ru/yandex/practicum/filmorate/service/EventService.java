@@ -6,6 +6,7 @@ import ru.yandex.practicum.filmorate.dao.EventRepository;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.EventOperation;
 import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.storage.KeysetPages;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.Instant;
@@ -13,6 +14,7 @@ import java.util.Collection;
 
 @Service
 public class EventService {
+    private static final int STREAM_PAGE_SIZE = 1000;
 
     private final UserStorage userStorage;
     private final EventRepository eventRepository;
@@ -27,6 +29,17 @@ public class EventService {
         return eventRepository.findByUserId(userId);
     }
 
+    // Лента читается страницами по мере записи ответа; пользователь проверяется сразу
+    public Iterable<Event> streamByUserId(Long userId) {
+        userStorage.getUserById(userId);
+        return new KeysetPages<>((afterId, count) -> eventRepository.findPage(userId, afterId, count),
+                Event::getEventId, STREAM_PAGE_SIZE);
+    }
+
+    public String getFeedTag(Long userId) {
+        return EntityTags.of(eventRepository.getVersion(userId), userStorage.getVersion(userId));
+    }
+
     public void addEvent(EventType eventType, EventOperation eventOperation, Long userId, Long entityId) {
         Event newEvent = Event.builder()
                 .eventType(eventType)
@@ -4,57 +4,84 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.controller.FilmController;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.EventOperation;
-import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.storage.KeysetPages;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class FilmService {
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
     private final LikeStorage likeStorage;
-    private final GenreStorage genreStorage;
-    private final EventService eventService;
     private static final Logger log = LoggerFactory.getLogger(FilmController.class);
+    private static final int MAX_LIKE_BATCH_SIZE = 1000;
+    private static final int MAX_LIKES_PAGE_SIZE = 1000;
+    private static final int STREAM_PAGE_SIZE = 1000;
 
     public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
                        @Qualifier("userDbStorage") UserStorage userStorage,
-                       LikeStorage likeStorage, GenreStorage genreStorage, EventService eventService) {
+                       LikeStorage likeStorage) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
         this.likeStorage = likeStorage;
-        this.genreStorage = genreStorage;
-        this.eventService = eventService;
     }
 
-    public Collection<Film> findAll() {
+    public Collection<FilmView> findAll(Set<FilmField> fields) {
         log.trace("Вывод списка всех фильмов");
-        return filmStorage.findAll();
+        return filmStorage.findAll(fields);
     }
 
-    public Film create(Film film) {
+    // Все фильмы читаются страницами по мере записи ответа, а не одним списком
+    public Iterable<FilmView> streamAll(Set<FilmField> fields) {
+        log.trace("Потоковый вывод всех фильмов");
+        return new KeysetPages<>((afterId, count) -> filmStorage.findPage(afterId, count, fields),
+                FilmView::id, STREAM_PAGE_SIZE);
+    }
+
+    @Transactional
+    public FilmView create(Film film) {
         log.trace("Добавление нового фильма");
-        return filmStorage.create(film);
+        return FilmView.of(filmStorage.create(film), FilmField.ALL);
     }
 
-    public Film getFilmById(Long id) {
+    public FilmView getFilmById(Long id, Set<FilmField> fields) {
         log.trace("Получение фильма с id = {}", id);
-        Film film = filmStorage.getFilmById(id);
-        film.setGenres(genreStorage.findAllGenresByFilm(id));
-        return film;
+        return filmStorage.getFilmById(id, fields);
+    }
+
+    // likesCount входит в ответ, поэтому метка зависит от лайков фильма; лайки удалённого
+    // пользователя исчезают каскадом и видны только по версии пользователей
+    public String getFilmTag(Long id) {
+        return EntityTags.of(filmStorage.getVersion(id), likeStorage.getVersion(id), userStorage.getVersion());
+    }
+
+    public MultiGetResult<FilmView> getFilmsByIds(List<Long> ids, Set<FilmField> fields) {
+        log.trace("Получение фильмов по списку из {} id", ids.size());
+        Set<Long> uniqueIds = MultiGetResult.uniqueIds(ids);
+        return MultiGetResult.of(uniqueIds, filmStorage.getFilmsByIds(uniqueIds, fields), FilmView::id);
     }
 
-    public Film update(Film newFilm) {
+    @Transactional
+    public FilmView update(Film newFilm) {
         log.trace("Обновление данных фильма");
         return filmStorage.update(newFilm);
     }
@@ -66,10 +93,7 @@ public class FilmService {
             throw new ValidationException("Id должен быть указан");
         }
 
-        userStorage.getUserById(userId);
-
         likeStorage.addLike(filmId, userId);
-        eventService.addEvent(EventType.LIKE, EventOperation.ADD, userId, filmId);
     }
 
     public void deleteLike(Long filmId, Long userId) {
@@ -79,15 +103,59 @@ public class FilmService {
             throw new ValidationException("Id должен быть указан");
         }
 
-        userStorage.getUserById(userId);
-
         likeStorage.removeLike(filmId, userId);
-        eventService.addEvent(EventType.LIKE, EventOperation.REMOVE, userId, filmId);
     }
 
-    public Collection<Film> getPopularFilms(Integer count, Integer genreId, Integer year) {
-        log.info("Вывод первыx {} популярных фильмов жанра {}, в году {} ", count, genreId, year);
-        return filmStorage.getPopularFilms(count, genreId, year);
+    public List<Long> getLikes(Long filmId, Long afterUserId, Integer count) {
+        log.trace("Получение до {} лайков фильма id={} после пользователя с id={}", count, filmId, afterUserId);
+        if (count <= 0 || count > MAX_LIKES_PAGE_SIZE) {
+            log.warn("Размер страницы лайков {} вне допустимого диапазона", count);
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_LIKES_PAGE_SIZE);
+        }
+        List<Long> userIds = likeStorage.getLikes(filmId, afterUserId, count);
+        if (userIds.isEmpty()) {
+            // Пустая страница бывает и у существующего фильма, поэтому фильм проверяется только в этом случае
+            filmStorage.getFilmById(filmId, EnumSet.of(FilmField.ID));
+        }
+        return userIds;
+    }
+
+    // Очередь проигрывается по порядку, поэтому для пары фильм-пользователь важна только последняя
+    // операция: применённая к сохранённому состоянию, она даёт тот же итог, что и вся очередь
+    public List<LikeOperation> applyLikes(List<LikeOperation> operations) {
+        log.trace("Пакетное применение {} операций с лайками", operations.size());
+        if (operations.size() > MAX_LIKE_BATCH_SIZE) {
+            log.warn("В пакете {} операций с лайками, допускается не более {}", operations.size(), MAX_LIKE_BATCH_SIZE);
+            throw new ValidationException("В пакете может быть не более " + MAX_LIKE_BATCH_SIZE + " операций");
+        }
+        Map<List<Long>, LikeOperation> lastOperations = new LinkedHashMap<>();
+        for (LikeOperation operation : operations) {
+            if (operation.getFilmId() == null || operation.getUserId() == null) {
+                log.warn("В операции с лайком не указан id фильма или пользователя");
+                throw new ValidationException("Id должен быть указан");
+            }
+            if (operation.getOp() != EventOperation.ADD && operation.getOp() != EventOperation.REMOVE) {
+                log.warn("Неизвестная операция с лайком {}", operation.getOp());
+                throw new ValidationException("Операция должна быть ADD или REMOVE");
+            }
+            lastOperations.put(List.of(operation.getFilmId(), operation.getUserId()), operation);
+        }
+
+        List<LikeOperation> resolved = new ArrayList<>(lastOperations.values());
+        if (!resolved.isEmpty()) {
+            likeStorage.applyLikes(resolved);
+        }
+        return resolved;
+    }
+
+    public Collection<FilmView> getPopularFilms(Integer count, Integer genreId, Integer year, Set<FilmField> fields) {
+        log.debug("Вывод первыx {} популярных фильмов жанра {}, в году {} ", count, genreId, year);
+        return filmStorage.getPopularFilms(count, genreId, year, fields);
+    }
+
+    // Удаление пользователя каскадно удаляет его лайки, поэтому учитывается и версия пользователей
+    public String getPopularFilmsTag() {
+        return EntityTags.of(filmStorage.getVersion(), likeStorage.getVersion(), userStorage.getVersion());
     }
 
     public void deleteFilmById(Long filmId) {
@@ -95,19 +163,19 @@ public class FilmService {
         filmStorage.deleteFilmById(filmId);
     }
 
-    public List<Film> getFilmsByDirector(Long directorId, String sortBy) {
-        log.info("Получение фильмов режиссера с id = {} и сортировкой по {}", directorId, sortBy);
-        return filmStorage.getFilmsByDirector(directorId, sortBy);
+    public List<FilmView> getFilmsByDirector(Long directorId, String sortBy, Set<FilmField> fields) {
+        log.debug("Получение фильмов режиссера с id = {} и сортировкой по {}", directorId, sortBy);
+        return filmStorage.getFilmsByDirector(directorId, sortBy, fields);
     }
 
-    public Collection<Film> getCommonFilms(Long userId, Long friendId) {
-        log.info("Вывод общих фильмов пользователя {} и пользователя {}", userId, friendId);
-        return filmStorage.getCommonFilms(userId, friendId);
+    public Collection<FilmView> getCommonFilms(Long userId, Long friendId, Set<FilmField> fields) {
+        log.debug("Вывод общих фильмов пользователя {} и пользователя {}", userId, friendId);
+        return filmStorage.getCommonFilms(userId, friendId, fields);
     }
 
 
-    public List<Film> search(String query, List<String> by) {
-        log.info("Поиск фильмов c подстрокой " + query);
+    public List<FilmView> search(String query, List<String> by, Set<FilmField> fields) {
+        log.debug("Поиск фильмов c подстрокой {}", query);
         if (query == null || query.isEmpty()) {
             log.warn("Текст для поиска не может быть null или пустым");
             throw new ValidationException("Не указан текст для посика");
@@ -115,11 +183,11 @@ public class FilmService {
         if (by.size() == 1) {
             if (by.getFirst().equals("director")) {
                 log.trace("Осуществляем поиск по режиссеру");
-                return filmStorage.searchFilms(query, true, false);
+                return filmStorage.searchFilms(query, true, false, fields);
             }
             if (by.getFirst().equals("title")) {
                 log.trace("Осуществляем поиск по названию");
-                return filmStorage.searchFilms(query, false, true);
+                return filmStorage.searchFilms(query, false, true, fields);
             }
             log.warn("Поиск может осуществляться только по названию или по режиссеру");
             throw new NotFoundException("Неизвестное значение параметра поиска. Ввидите director для поиска по" +
@@ -128,7 +196,7 @@ public class FilmService {
         }
         if (by.size() == 2 && by.contains("director") && by.contains("title")) {
             log.trace("Осуществляем поиск по названию и по режиссеру одновременно");
-            return filmStorage.searchFilms(query, true, true);
+            return filmStorage.searchFilms(query, true, true, fields);
         }
         throw new ValidationException("Неверный формат параметров поска");
     }
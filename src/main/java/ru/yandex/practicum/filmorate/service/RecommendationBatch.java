@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.storage.CoLikeIndex;
+import ru.yandex.practicum.filmorate.storage.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationStorage;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пакетный пересчёт рекомендаций всех пользователей с лайками в таблицу user_recommendations.
+ * Пользователи делятся на части по {@link #CHUNK_SIZE}: каждая считается по индексу совместных
+ * лайков в пуле fork-join и сразу записывается. Таблица заменяется целиком одной транзакцией,
+ * поэтому до коммита читаются прежние результаты.
+ *
+ * <p>Пользователи, чьи лайки изменились после начала последнего пересчёта, получают рекомендации
+ * по индексу при запросе. Изменения чужих лайков сохранённые списки не обновляют до следующего запуска.
+ */
+@Service
+public class RecommendationBatch implements LikeIndex {
+    static final int CHUNK_SIZE = 10_000;
+    // Меньшие части считаются в одной задаче: разбиение дальше дороже самих расчётов
+    static final int TASK_SIZE = 64;
+    private static final Logger log = LoggerFactory.getLogger(RecommendationBatch.class);
+
+    private final CoLikeIndex coLikeIndex;
+    private final RecommendationStorage recommendationStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final RecommendationCache recommendationCache;
+    private final int parallelism;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong changes = new AtomicLong();
+    // Пользователь → номер последнего изменения его лайков
+    private final Map<Long, Long> dirty = new ConcurrentHashMap<>();
+    private volatile boolean completed;
+
+    public RecommendationBatch(CoLikeIndex coLikeIndex, RecommendationStorage recommendationStorage,
+                               PlatformTransactionManager transactionManager, RecommendationCache recommendationCache,
+                               @Value("${filmorate.recommendations.batch-parallelism:0}") int parallelism) {
+        this.coLikeIndex = coLikeIndex;
+        this.recommendationStorage = recommendationStorage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recommendationCache = recommendationCache;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Scheduled(cron = "${filmorate.recommendations.batch-cron:0 0 3 * * *}")
+    public Report run() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Пересчёт рекомендаций уже выполняется, запуск пропущен");
+            return null;
+        }
+        try {
+            long start = System.nanoTime();
+            // Изменения после этой точки могли не попасть в расчёт, их пользователи остаются в dirty
+            long startChange = changes.get();
+            long[] userIds = coLikeIndex.userIds();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    recommendationStorage.deleteAll();
+                    for (int from = 0; from < userIds.length; from += CHUNK_SIZE) {
+                        long[] chunk = Arrays.copyOfRange(userIds, from, Math.min(from + CHUNK_SIZE, userIds.length));
+                        long[][] filmIds = new long[chunk.length][];
+                        pool.invoke(new Partition(chunk, filmIds, 0, chunk.length));
+                        recommendationStorage.saveAll(chunk, filmIds);
+                    }
+                });
+            } finally {
+                pool.shutdown();
+            }
+            dirty.entrySet().removeIf(user -> user.getValue() <= startChange);
+            completed = true;
+            // Ответы по лайкам могли быть посчитаны по индексу, а теперь берутся из новой таблицы
+            recommendationCache.invalidateAll();
+
+            Report report = new Report(userIds.length, (System.nanoTime() - start) / 1_000_000);
+            log.info("Рекомендации пересчитаны для {} пользователей за {} мс: {} пользователей/с, потоков {}",
+                    report.users(), report.millis(), Math.round(report.usersPerSecond()), parallelism);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Сохранённый список актуален, если пересчёт уже был и лайки пользователя с тех пор не менялись
+    public boolean isPrecomputed(long userId) {
+        return completed && !dirty.containsKey(userId);
+    }
+
+    @Override
+    public void addLike(long filmId, long userId) {
+        dirty.put(userId, changes.incrementAndGet());
+    }
+
+    @Override
+    public void removeLike(long filmId, long userId) {
+        dirty.put(userId, changes.incrementAndGet());
+    }
+
+    // Удалённые фильмы отбрасываются при чтении фильмов ответа
+    @Override
+    public void removeFilm(long filmId) {
+    }
+
+    @Override
+    public void removeUser(long userId) {
+    }
+
+    private class Partition extends RecursiveAction {
+        private final long[] userIds;
+        private final long[][] filmIds;
+        private final int from;
+        private final int to;
+
+        Partition(long[] userIds, long[][] filmIds, int from, int to) {
+            this.userIds = userIds;
+            this.filmIds = filmIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Partition(userIds, filmIds, from, middle), new Partition(userIds, filmIds, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                filmIds[i] = coLikeIndex.recommend(userIds[i], RecommendationService.MAX_RECOMMENDATIONS).stream()
+                        .mapToLong(Long::longValue)
+                        .toArray();
+            }
+        }
+    }
+
+    public record Report(int users, long millis) {
+        public double usersPerSecond() {
+            return users * 1000.0 / Math.max(millis, 1);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.metrics.MetricsRegistry;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.storage.CoLikeIndex;
+import ru.yandex.practicum.filmorate.storage.LikeIndex;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Готовые ответы рекомендаций по пользователю и стратегии. Запись помнит, от чего зависит:
+ * от лайков самого пользователя, от списков соседей лайкнутых им фильмов и от фильмов ответа.
+ * Изменение лайков пользователя, списка соседей одного из этих фильмов или удаление фильма
+ * сбрасывает только зависящие от них записи. Изменённые фильмы ответа и их лайки, от которых
+ * зависит likesCount, находятся по версиям при чтении, а ответ по содержанию — по версии всего каталога.
+ *
+ * <p>Записей не больше заданного числа, при переполнении вытесняется давно не читанная.
+ * Попадания, промахи и вытеснения видны в /internal/metrics с cache="recommendations".
+ */
+@Component
+public class RecommendationCache implements LikeIndex {
+    static final String CACHE = "recommendations";
+
+    private final FilmStorage filmStorage;
+    private final CoLikeIndex coLikeIndex;
+    private final MetricsRegistry metricsRegistry;
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+    // Фильм → записи, которые от него зависят
+    private final Map<Long, Set<Key>> dependents = new HashMap<>();
+    private final VersionCounter likeVersions = new VersionCounter();
+
+    // Хранилище фильмов само вызывает кэш как LikeIndex, поэтому оно подставляется лениво
+    public RecommendationCache(@Lazy @Qualifier("filmDbStorage") FilmStorage filmStorage, CoLikeIndex coLikeIndex,
+                               MetricsRegistry metricsRegistry,
+                               @Value("${filmorate.recommendations.cache-size:10000}") int maxEntries) {
+        this.filmStorage = filmStorage;
+        this.coLikeIndex = coLikeIndex;
+        this.metricsRegistry = metricsRegistry;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= RecommendationCache.this.maxEntries) {
+                    return false;
+                }
+                unlink(eldest.getValue());
+                metricsRegistry.recordCacheEviction(CACHE);
+                return true;
+            }
+        };
+        coLikeIndex.addNeighboursListener(this::invalidateFilm);
+    }
+
+    /**
+     * Ответ из кэша или от loader. Запись регистрируется до расчёта: изменение её зависимостей
+     * во время расчёта удаляет её, и устаревший ответ не сохраняется.
+     */
+    public List<FilmView> get(long userId, String strategy, Supplier<List<FilmView>> loader) {
+        Key key = new Key(userId, strategy);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        // Версии проверяются вне монитора: он нужен только для порядка доступа и связей записей
+        Result result = entry == null ? null : entry.result;
+        if (result != null && isCurrent(entry, result)) {
+            metricsRegistry.recordCacheHit(CACHE);
+            return result.films();
+        }
+        metricsRegistry.recordCacheMiss(CACHE);
+
+        Entry pending = new Entry(key, filmStorage.getVersion(), likeVersions.get());
+        synchronized (this) {
+            remove(key);
+            entries.put(key, pending);
+        }
+        long[] likedFilmIds = coLikeIndex.likedFilms(userId);
+        synchronized (this) {
+            if (entries.get(key) == pending) {
+                link(pending, likedFilmIds);
+            }
+        }
+        List<FilmView> films = List.copyOf(loader.get());
+        long[] filmIds = films.stream().mapToLong(FilmView::id).toArray();
+        Result completed = new Result(films, filmIds, filmStorage.getVersion(filmIds));
+        // Версия фильмов ответа взята раньше версии каталога: изменение после проверки каталога
+        // будет видно по ней при чтении, а изменение до проверки не даст сохранить ответ.
+        // Лайк фильма ответа во время расчёта мог не попасть в прочитанный likesCount
+        boolean current = filmStorage.getVersion() == pending.catalogVersion && likesUnchanged(pending, completed);
+        synchronized (this) {
+            if (entries.get(key) != pending) {
+                return films;
+            }
+            if (!current) {
+                remove(key);
+                return films;
+            }
+            link(pending, filmIds);
+            pending.result = completed;
+        }
+        return films;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        dependents.clear();
+    }
+
+    // Лайк меняет likesCount фильма в чужих ответах: они проверяются по версии лайков фильма при чтении
+    @Override
+    public void addLike(long filmId, long userId) {
+        likeVersions.touch(filmId);
+        invalidateUser(userId);
+    }
+
+    @Override
+    public void removeLike(long filmId, long userId) {
+        likeVersions.touch(filmId);
+        invalidateUser(userId);
+    }
+
+    @Override
+    public void removeFilm(long filmId) {
+        invalidateFilm(filmId);
+    }
+
+    // Лайки удалённого пользователя исчезают каскадом, и какие фильмы он лайкал, уже неизвестно
+    @Override
+    public void removeUser(long userId) {
+        invalidateAll();
+    }
+
+    private synchronized void invalidateUser(long userId) {
+        remove(new Key(userId, RecommendationService.LIKES_STRATEGY));
+        remove(new Key(userId, RecommendationService.CONTENT_STRATEGY));
+    }
+
+    private synchronized void invalidateFilm(long filmId) {
+        Set<Key> keys = dependents.get(filmId);
+        if (keys != null) {
+            List.copyOf(keys).forEach(this::remove);
+        }
+    }
+
+    private boolean isCurrent(Entry entry, Result result) {
+        if (!likesUnchanged(entry, result)) {
+            return false;
+        }
+        if (RecommendationService.CONTENT_STRATEGY.equals(entry.key.strategy())) {
+            return filmStorage.getVersion() == entry.catalogVersion;
+        }
+        return filmStorage.getVersion(result.filmIds()) == result.filmsVersion();
+    }
+
+    // Версия лайков фильма — номер его последнего изменения, поэтому сравнивается с номером на начало расчёта
+    private boolean likesUnchanged(Entry entry, Result result) {
+        for (long filmId : result.filmIds()) {
+            if (likeVersions.get(filmId) > entry.likesVersion) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    private void link(Entry entry, long[] filmIds) {
+        for (long filmId : filmIds) {
+            if (entry.dependencies.add(filmId)) {
+                dependents.computeIfAbsent(filmId, id -> new HashSet<>()).add(entry.key);
+            }
+        }
+    }
+
+    private void unlink(Entry entry) {
+        for (Long filmId : entry.dependencies) {
+            Set<Key> keys = dependents.get(filmId);
+            if (keys != null && keys.remove(entry.key) && keys.isEmpty()) {
+                dependents.remove(filmId);
+            }
+        }
+    }
+
+    private record Key(long userId, String strategy) {
+    }
+
+    private record Result(List<FilmView> films, long[] filmIds, long filmsVersion) {
+    }
+
+    // Пока result не заполнен, запись только отмечает идущий расчёт. Результат публикуется
+    // одной volatile-записью и читается без монитора
+    private static final class Entry {
+        private final Key key;
+        private final long catalogVersion;
+        private final long likesVersion;
+        private final Set<Long> dependencies = new HashSet<>();
+        private volatile Result result;
+
+        private Entry(Key key, long catalogVersion, long likesVersion) {
+            this.key = key;
+            this.catalogVersion = catalogVersion;
+            this.likesVersion = likesVersion;
+        }
+    }
+}
@@ -4,72 +4,94 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.dao.LikesDbStorage;
-import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.storage.CoLikeIndex;
+import ru.yandex.practicum.filmorate.storage.FilmFeatureIndex;
+import ru.yandex.practicum.filmorate.storage.FilmSignatureIndex;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
-import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.storage.recommendation.RecommendationStorage;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.EnumSet;
+import java.util.List;
 
 @Service
 public class RecommendationService {
+    static final int MAX_RECOMMENDATIONS = 20;
+    static final int MAX_SIMILAR_FILMS = 100;
+    public static final String LIKES_STRATEGY = "likes";
+    public static final String CONTENT_STRATEGY = "content";
+
     private final FilmStorage filmStorage;
-    private final UserStorage userStorage;
-    private final LikesDbStorage likeStorage;
+    private final CoLikeIndex coLikeIndex;
+    private final FilmSignatureIndex filmSignatureIndex;
+    private final RecommendationBatch recommendationBatch;
+    private final RecommendationStorage recommendationStorage;
+    private final FilmFeatureIndex filmFeatureIndex;
+    private final RecommendationCache recommendationCache;
     private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
 
-    public RecommendationService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
-                                 @Qualifier("userDbStorage") UserStorage userStorage, LikesDbStorage likeStorage) {
+    public RecommendationService(@Qualifier("filmDbStorage") FilmStorage filmStorage, CoLikeIndex coLikeIndex,
+                                 FilmSignatureIndex filmSignatureIndex, RecommendationBatch recommendationBatch,
+                                 RecommendationStorage recommendationStorage, FilmFeatureIndex filmFeatureIndex,
+                                 RecommendationCache recommendationCache) {
         this.filmStorage = filmStorage;
-        this.userStorage = userStorage;
-        this.likeStorage = likeStorage;
+        this.coLikeIndex = coLikeIndex;
+        this.filmSignatureIndex = filmSignatureIndex;
+        this.recommendationBatch = recommendationBatch;
+        this.recommendationStorage = recommendationStorage;
+        this.filmFeatureIndex = filmFeatureIndex;
+        this.recommendationCache = recommendationCache;
     }
 
-    public Set<Film> getRecommendationFilms(Long userId) {
-        log.info("Получение рекомендаций для пользователся с id = {}", userId);
-        //Получение списка пользователей удаление, пользователя для которого составляется рекомендация
-        List<Long> usersIdList = new ArrayList<>(userStorage.findAll().stream().map(User::getId).toList());
-        usersIdList.remove(userId);
+    // Фильмы, похожие на лайкнутые пользователем, по убыванию суммы весов соседства. Берутся из
+    // ночного пересчёта, а если лайки пользователя с тех пор менялись, считаются по индексу
+    public List<FilmView> getRecommendationFilms(Long userId) {
+        return getRecommendationFilms(userId, LIKES_STRATEGY);
+    }
 
-        // Создание и заполнение map id-пользователей и множеством id-фильмов, которым ставили лайк
-        Map<Long, Set<Long>> usersFilms = new HashMap<>();
-        for (Long id : usersIdList) {
-            if (!likeStorage.getUsersFilmLikes(id).isEmpty()) {
-                usersFilms.put(id, likeStorage.getUsersFilmLikes(id));
-            }
+    // Стратегия content ранжирует фильмы по близости жанров, рейтинга, режиссёров и десятилетия
+    // к лайкнутым и даёт рекомендации пользователю, чьи фильмы больше никто не лайкал.
+    // Готовые ответы хранятся в RecommendationCache до изменения того, от чего они зависят
+    public List<FilmView> getRecommendationFilms(Long userId, String strategy) {
+        log.debug("Получение рекомендаций для пользователся с id = {} по стратегии {}", userId, strategy);
+        if (!CONTENT_STRATEGY.equals(strategy) && !LIKES_STRATEGY.equals(strategy)) {
+            log.warn("Неизвестная стратегия рекомендаций {}", strategy);
+            throw new ValidationException("Стратегия рекомендаций должна быть " + LIKES_STRATEGY + " или " +
+                    CONTENT_STRATEGY);
         }
+        return recommendationCache.get(userId, strategy, () -> computeRecommendations(userId, strategy));
+    }
 
-        // Получение множества id-фильмов для пользователя
-        Set<Long> userFilmsId = likeStorage.getUsersFilmLikes(userId);
-        if (userFilmsId.isEmpty()) {
-            return Collections.EMPTY_SET;
+    private List<FilmView> computeRecommendations(Long userId, String strategy) {
+        if (CONTENT_STRATEGY.equals(strategy)) {
+            return films(filmFeatureIndex.recommend(coLikeIndex.likedFilms(userId), MAX_RECOMMENDATIONS));
         }
+        return films(recommendationBatch.isPrecomputed(userId)
+                ? recommendationStorage.getRecommendations(userId)
+                : coLikeIndex.recommend(userId, MAX_RECOMMENDATIONS));
+    }
 
-        // Поиск id-пользователя с максимальным количеством совпадений с рекомендуемым пользователем
-        Long userIdWithTopFreq = -1L;
-        int topFreq = 0;
-
-        for (Long id : usersFilms.keySet()) {
-            Set<Long> filmsId = new HashSet<>(usersFilms.get(id));
-            filmsId.retainAll(userFilmsId);
-            int countFreq = filmsId.size();
-            if (countFreq > topFreq) {
-                topFreq = countFreq;
-                userIdWithTopFreq = id;
-            }
+    // Фильмы с самой похожей аудиторией по оценке меры Жаккара из MinHash-подписей
+    public List<FilmView> getSimilarFilms(Long filmId, Integer count) {
+        log.debug("Получение до {} фильмов, похожих на фильм с id = {}", count, filmId);
+        if (count <= 0 || count > MAX_SIMILAR_FILMS) {
+            log.warn("Число похожих фильмов {} вне допустимого диапазона", count);
+            throw new ValidationException("Число похожих фильмов должно быть от 1 до " + MAX_SIMILAR_FILMS);
         }
-
-        if (topFreq == 0) {
-            return Collections.EMPTY_SET;
+        List<Long> filmIds = filmSignatureIndex.similar(filmId, count).stream()
+                .map(FilmSignatureIndex.Match::filmId)
+                .toList();
+        if (filmIds.isEmpty()) {
+            // Пустой ответ бывает и у существующего фильма без лайков, поэтому фильм проверяется только в этом случае
+            filmStorage.getFilmById(filmId, EnumSet.of(FilmField.ID));
+            return List.of();
         }
+        return filmStorage.getFilmsByIds(filmIds, FilmField.ALL);
+    }
 
-        // Получение множества фильмов пользователя с максимальным количеством совпадений
-        // и удаление совпадений со множеством фильмов рекомендуемого
-        Set<Long> filmsId = usersFilms.get(userIdWithTopFreq);
-        filmsId.removeAll(userFilmsId);
-
-        return filmsId.stream().map(filmStorage::getFilmById).collect(Collectors.toSet());
+    private List<FilmView> films(List<Long> filmIds) {
+        return filmIds.isEmpty() ? List.of() : filmStorage.getFilmsByIds(filmIds, FilmField.ALL);
     }
 }
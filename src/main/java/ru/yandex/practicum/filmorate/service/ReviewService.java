@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dao.ReviewDbStorage;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
@@ -34,6 +35,7 @@ public class ReviewService {
         this.eventService = eventService;
     }
 
+    @Transactional
     public Review create(Review review) {
         log.info("Создаем новый отзыв");
         filmStorage.getFilmById(review.getFilmId());
@@ -44,17 +46,27 @@ public class ReviewService {
     }
 
     public Review getReviewById(Long id) {
-        log.info("Получаем отзыв с id = " + id);
+        log.debug("Получаем отзыв с id = {}", id);
         Optional<Review> reviewOptional = reviewDbStorage.getReviewById(id);
         log.trace("Проверяем, что такой отзыв существует");
         if (reviewOptional.isEmpty()) {
-            log.warn("Отзыв с id = " + id + " не найден");
+            log.warn("Отзыв с id = {} не найден", id);
             throw new NotFoundException("Отзыва с id = " + id + " не существует");
         }
         log.trace("Отзыв найден");
         return reviewOptional.get();
     }
 
+    // Отзывы удаляются каскадно вместе с фильмом или пользователем
+    public String getReviewTag(Long id) {
+        return EntityTags.of(reviewDbStorage.getVersion(id), filmStorage.getVersion(), userStorage.getVersion());
+    }
+
+    public String getReviewsTag() {
+        return EntityTags.of(reviewDbStorage.getVersion(), filmStorage.getVersion(), userStorage.getVersion());
+    }
+
+    @Transactional
     public Review updateReview(Review review) {
         log.info("Обновляем отзыв");
         Review rev = validationForUpdate(review);
@@ -64,10 +76,11 @@ public class ReviewService {
         return updateReview;
     }
 
+    @Transactional
     public void deleteReview(Long id) {
         log.info("Удаляем отзыв");
         Review deletedReview = reviewDbStorage.getReviewById(id).orElseThrow(() -> {
-            log.warn("Отзыва с id = " + id + " не существует");
+            log.warn("Отзыва с id = {} не существует", id);
             return new NotFoundException("Отзыв с id = " + id + " не найден");
         });
         reviewDbStorage.deleteReview(id);
@@ -82,8 +95,9 @@ public class ReviewService {
         return reviewDbStorage.getFilmReviews(filmId, count);
     }
 
+    @Transactional
     public void addLikeReview(Long reviewId, Long userId) {
-        log.info("Пользователь с id = " + userId + " ставит лайк отзыву с id = " + reviewId);
+        log.info("Пользователь с id = {} ставит лайк отзыву с id = {}", userId, reviewId);
         validationForGradeReview(reviewId, userId);
         log.trace("Проверяем оставлял ли пользователь оценку данному отзыву");
         Optional<GradeReview> gradeReviewOptional = reviewDbStorage.getGrandReview(reviewId, userId);
@@ -107,8 +121,9 @@ public class ReviewService {
         }
     }
 
+    @Transactional
     public void deleteLikeReview(Long reviewId, Long userId) {
-        log.info("Пользователь с id = " + userId + " удаляет лайк отзыву с id = " + reviewId);
+        log.info("Пользователь с id = {} удаляет лайк отзыву с id = {}", userId, reviewId);
         validationForGradeReview(reviewId, userId);
         log.trace("Проверяем оставлял ли пользователь оценку данному отзыву");
         Optional<GradeReview> gradeReviewOptional = reviewDbStorage.getGrandReview(reviewId, userId);
@@ -123,8 +138,9 @@ public class ReviewService {
         }
     }
 
+    @Transactional
     public void addDislikeReview(Long reviewId, Long userId) {
-        log.info("Пользователь с id = " + userId + " ставит дизлайк отзыву с id = " + reviewId);
+        log.info("Пользователь с id = {} ставит дизлайк отзыву с id = {}", userId, reviewId);
         validationForGradeReview(reviewId, userId);
         log.trace("Проверяем оставлял ли пользователь оценку данному отзыву");
         Optional<GradeReview> gradeReviewOptional = reviewDbStorage.getGrandReview(reviewId, userId);
@@ -148,8 +164,9 @@ public class ReviewService {
         }
     }
 
+    @Transactional
     public void deleteDislikeReview(Long reviewId, Long userId) {
-        log.info("Пользователь с id = " + userId + " удаляет дизлайк отзыву с id = " + reviewId);
+        log.info("Пользователь с id = {} удаляет дизлайк отзыву с id = {}", userId, reviewId);
         validationForGradeReview(reviewId, userId);
         log.trace("Проверяем оставлял ли пользователь оценку данному отзыву");
         Optional<GradeReview> gradeReviewOptional = reviewDbStorage.getGrandReview(reviewId, userId);
@@ -165,10 +182,10 @@ public class ReviewService {
     }
 
     private void validationForGradeReview(Long reviewId, Long userId) {
-        log.info("Пользователь с id = " + userId + " ставит лайк отзыву с id = " + reviewId);
+        log.trace("Проверяем отзыв с id = {} и пользователя с id = {}", reviewId, userId);
         log.trace("Проверяем существование отзыва");
         if (reviewDbStorage.getReviewById(reviewId).isEmpty()) {
-            log.warn("Отзыва с id = " + reviewId + " не существует");
+            log.warn("Отзыва с id = {} не существует", reviewId);
             throw new NotFoundException("Отзыв с id = " + reviewId + " не найден");
         }
         log.trace("Отзыв существует");
@@ -186,7 +203,7 @@ public class ReviewService {
         Optional<Review> reviewOptional = reviewDbStorage.getReviewById(review.getReviewId());
         log.trace("Проверяем, что такой отзыв существует");
         if (reviewOptional.isEmpty()) {
-            log.warn("Отзыв с id = " + review.getReviewId() + " не найден");
+            log.warn("Отзыв с id = {} не найден", review.getReviewId());
             throw new NotFoundException("Отзыва с id = " + review.getReviewId() + " не существует");
         }
         log.trace("Отзыв найден");
@@ -4,14 +4,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.EventOperation;
 import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserView;
 import ru.yandex.practicum.filmorate.storage.friend.FriendStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 @Service
 public class UserService {
@@ -27,27 +32,28 @@ public class UserService {
         this.eventService = eventService;
     }
 
-    public Collection<User> findAll() {
-        log.info("Вывод списка всех пользователей");
-        return userStorage.findAll();
+    public Collection<UserView> findAll() {
+        log.debug("Вывод списка всех пользователей");
+        return views(userStorage.findAll());
     }
 
-    public User create(User user) {
+    public UserView create(User user) {
         log.info("Создание нового пользователя");
-        return userStorage.create(user);
+        return UserView.of(userStorage.create(user));
     }
 
-    public User update(User newUser) {
+    public UserView update(User newUser) {
         log.trace("Обновление данных пользователя");
-        return userStorage.update(newUser);
+        return UserView.of(userStorage.update(newUser));
     }
 
-    public Collection<User> getFriends(Long userId) {
-        log.info("Вывод списка всех друзей пользователя c id={}", userId);
+    public Collection<UserView> getFriends(Long userId) {
+        log.debug("Вывод списка всех друзей пользователя c id={}", userId);
         checkUserId(userId);
-        return friendStorage.findAllFriends(userId);
+        return views(friendStorage.findAllFriends(userId));
     }
 
+    @Transactional
     public void addFriend(Long userId, Long friendId) {
         log.info("Добавление друга c id={} пользователю с id={}", friendId, userId);
         checkUserId(userId);
@@ -56,6 +62,7 @@ public class UserService {
         eventService.addEvent(EventType.FRIEND, EventOperation.ADD,userId, friendId);
     }
 
+    @Transactional
     public void deleteFriend(Long userId, Long friendId) {
         log.info("Удаление пользователем с id={} из списка друзей пользователя с id={}", userId, friendId);
         checkUserId(userId);
@@ -64,22 +71,33 @@ public class UserService {
         eventService.addEvent(EventType.FRIEND, EventOperation.REMOVE,userId, friendId);
     }
 
-    public User getUserById(Long userId) {
-        log.info("Вывод пользователя c id={}", userId);
-        return userStorage.getUserById(userId);
+    public UserView getUserById(Long userId) {
+        log.debug("Вывод пользователя c id={}", userId);
+        return UserView.of(userStorage.getUserById(userId));
     }
 
+    public MultiGetResult<UserView> getUsersByIds(List<Long> ids) {
+        log.debug("Вывод пользователей по списку из {} id", ids.size());
+        Set<Long> uniqueIds = MultiGetResult.uniqueIds(ids);
+        return MultiGetResult.of(uniqueIds, views(userStorage.getUsersByIds(uniqueIds)), UserView::id);
+    }
+
+    @Transactional
     public void deleteUserById(Long userId) {
         log.info("Удаление пользователя с id={} ", userId);
         checkUserId(userId);
         userStorage.deleteUserById(userId);
     }
 
-    public Collection<User> getCommonFriends(Long userId, Long otherId) {
-        log.info("Вывод списка общих друзей пользователя с id={} и пользователя с id={}", userId, otherId);
+    public Collection<UserView> getCommonFriends(Long userId, Long otherId) {
+        log.debug("Вывод списка общих друзей пользователя с id={} и пользователя с id={}", userId, otherId);
         checkUserId(userId);
         checkUserId(otherId);
-        return friendStorage.findCommonFriends(userId, otherId);
+        return views(friendStorage.findCommonFriends(userId, otherId));
+    }
+
+    private static List<UserView> views(Collection<User> users) {
+        return users.stream().map(UserView::of).toList();
     }
 
     private void checkUserId(Long userId) {
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Строка матрицы совместных лайков: id фильма → число общих пользователей. Открытая адресация
+ * с линейным пробированием по массивам примитивов, без упаковки ключей и значений; удаление
+ * сдвигает следующие элементы цепочки назад, поэтому таблица обходится без надгробий.
+ */
+final class CoLikeCounts {
+    private static final long EMPTY = 0;
+
+    private long[] keys = new long[4];
+    private int[] counts = new int[4];
+    private int size;
+
+    interface Visitor {
+        void accept(long filmId, int count);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void increment(long filmId) {
+        int slot = find(filmId);
+        if (keys[slot] == filmId) {
+            counts[slot]++;
+            return;
+        }
+        keys[slot] = filmId;
+        counts[slot] = 1;
+        // Заполнение держится не выше половины, чтобы цепочки оставались короткими
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    void decrement(long filmId) {
+        int slot = find(filmId);
+        if (keys[slot] != filmId) {
+            return;
+        }
+        if (--counts[slot] > 0) {
+            return;
+        }
+        size--;
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            // Элемент переносится в дыру, если та лежит между его домашней ячейкой и текущей
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                counts[gap] = counts[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        counts[gap] = 0;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    void forEachKey(LongConsumer action) {
+        for (long key : keys) {
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    // id фильмов начинаются с единицы, поэтому ноль обозначает пустую ячейку
+    private int find(long filmId) {
+        int mask = keys.length - 1;
+        int slot = hash(filmId) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != filmId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
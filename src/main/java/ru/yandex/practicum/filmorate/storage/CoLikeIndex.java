@@ -0,0 +1,288 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Разреженная матрица совместных лайков фильм × фильм для рекомендаций по схожести фильмов.
+ * Вес пары — косинусная мера: число пользователей, лайкнувших оба фильма, делённое на корень
+ * из произведения числа лайков каждого. Для каждого фильма хранятся не более {@link #NEIGHBOURS}
+ * соседей с наибольшим весом; список пересчитывается при первом обращении после изменения строки.
+ * Строки матрицы хранятся в {@link CoLikeCounts} без упаковки чисел: у активных пользователей
+ * сотни лайков, и число пар растёт как квадрат от них.
+ *
+ * <p>Индекс строится из films_Likes при первом обращении, дальше его обновляют хранилища после
+ * коммита своих изменений. Добавление и удаление идемпотентны, поэтому изменение, попавшее
+ * и в начальную загрузку, и в обновление, учитывается один раз.
+ */
+// Получает изменения раньше кэша и отметок пересчёта, которые сбрасываются по его состоянию
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+public class CoLikeIndex implements LikeIndex {
+    static final int NEIGHBOURS = 50;
+    private static final Logger log = LoggerFactory.getLogger(CoLikeIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Set<Long>> filmsByUser = new HashMap<>();
+    private final Map<Long, Integer> likesByFilm = new HashMap<>();
+    private final Map<Long, CoLikeCounts> coLikes = new HashMap<>();
+    // Списки соседей вычисляются под блокировкой чтения, поэтому кэш допускает параллельную запись
+    private final Map<Long, List<Neighbour>> neighbours = new ConcurrentHashMap<>();
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+    private boolean loaded;
+
+    public CoLikeIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Фильмы с наибольшей суммой весов соседства с фильмами, которые лайкнул пользователь;
+     * уже лайкнутые пропускаются. При равной сумме первым идёт фильм с меньшим id.
+     */
+    public List<Long> recommend(long userId, int count) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Set<Long> liked = filmsByUser.getOrDefault(userId, Set.of());
+            Map<Long, Double> scores = new HashMap<>();
+            for (Long filmId : liked) {
+                for (Neighbour neighbour : neighbours.computeIfAbsent(filmId, this::topNeighbours)) {
+                    if (!liked.contains(neighbour.filmId())) {
+                        scores.merge(neighbour.filmId(), neighbour.weight(), Double::sum);
+                    }
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(count)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] likedFilms(long userId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return filmsByUser.getOrDefault(userId, Set.of()).stream().mapToLong(Long::longValue).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Слушатель получает id фильма, список соседей которого изменился; вызывается под блокировкой записи
+    public void addNeighboursListener(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    // Пользователи, у которых есть лайки, по возрастанию id
+    public long[] userIds() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return filmsByUser.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Neighbour> neighbours(long filmId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return neighbours.computeIfAbsent(filmId, this::topNeighbours);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addLike(long filmId, long userId) {
+        update(() -> add(filmId, userId));
+    }
+
+    @Override
+    public void removeLike(long filmId, long userId) {
+        update(() -> remove(filmId, userId));
+    }
+
+    // Лайки удаляемых фильма и пользователя удаляются каскадом в базе, индекс повторяет это после коммита
+    @Override
+    public void removeFilm(long filmId) {
+        VersionCounter.afterCommit(() -> update(() -> {
+            List<Long> likers = filmsByUser.entrySet().stream()
+                    .filter(user -> user.getValue().contains(filmId))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            likers.forEach(userId -> remove(filmId, userId));
+        }));
+    }
+
+    @Override
+    public void removeUser(long userId) {
+        VersionCounter.afterCommit(() -> update(() -> {
+            for (Long filmId : List.copyOf(filmsByUser.getOrDefault(userId, Set.of()))) {
+                remove(filmId, userId);
+            }
+        }));
+    }
+
+    // Сбрасывает индекс после записи лайков в обход хранилища, например при массовой загрузке
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            coLikes.keySet().forEach(this::notifyListeners);
+            clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            // До первой загрузки изменения уже есть в базе и попадут в индекс вместе с ней
+            if (loaded) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                clear();
+                jdbcTemplate.query("SELECT film_id, user_id FROM films_Likes ORDER BY user_id", rs -> {
+                    link(rs.getLong(1), rs.getLong(2));
+                });
+                loaded = true;
+                log.debug("Индекс совместных лайков построен: пользователей {}, фильмов {}", filmsByUser.size(),
+                        likesByFilm.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(long filmId, long userId) {
+        if (link(filmId, userId)) {
+            invalidate(filmId);
+        }
+    }
+
+    // При загрузке кэш соседей пуст, и сбрасывать в нём нечего
+    private boolean link(long filmId, long userId) {
+        Set<Long> films = filmsByUser.computeIfAbsent(userId, id -> new HashSet<>());
+        if (!films.add(filmId)) {
+            return false;
+        }
+        likesByFilm.merge(filmId, 1, Integer::sum);
+        for (Long otherId : films) {
+            if (otherId != filmId) {
+                coLikes.computeIfAbsent(filmId, id -> new CoLikeCounts()).increment(otherId);
+                coLikes.computeIfAbsent(otherId, id -> new CoLikeCounts()).increment(filmId);
+            }
+        }
+        return true;
+    }
+
+    private void remove(long filmId, long userId) {
+        Set<Long> films = filmsByUser.get(userId);
+        if (films == null || !films.remove(filmId)) {
+            return;
+        }
+        if (films.isEmpty()) {
+            filmsByUser.remove(userId);
+        }
+        // Строку соседей сбрасываем до изменения: после него фильм может из неё пропасть
+        invalidate(filmId);
+        likesByFilm.computeIfPresent(filmId, (id, likes) -> likes == 1 ? null : likes - 1);
+        for (Long otherId : films) {
+            decrement(filmId, otherId);
+            decrement(otherId, filmId);
+        }
+    }
+
+    private void decrement(long filmId, long otherId) {
+        CoLikeCounts row = coLikes.get(filmId);
+        if (row == null) {
+            return;
+        }
+        row.decrement(otherId);
+        if (row.isEmpty()) {
+            coLikes.remove(filmId);
+        }
+    }
+
+    // Число лайков фильма входит в вес каждой его пары, поэтому сбрасываются и списки всех фильмов строки
+    private void invalidate(long filmId) {
+        notifyListeners(filmId);
+        CoLikeCounts row = coLikes.get(filmId);
+        if (row != null) {
+            row.forEachKey(this::notifyListeners);
+        }
+    }
+
+    private void notifyListeners(long filmId) {
+        neighbours.remove(filmId);
+        for (LongConsumer listener : listeners) {
+            listener.accept(filmId);
+        }
+    }
+
+    private List<Neighbour> topNeighbours(long filmId) {
+        CoLikeCounts row = coLikes.get(filmId);
+        if (row == null) {
+            return List.of();
+        }
+        double likes = likesByFilm.getOrDefault(filmId, 0);
+        List<Neighbour> top = new ArrayList<>(row.size());
+        row.forEach((otherId, count) -> top.add(new Neighbour(otherId,
+                count / Math.sqrt(likes * likesByFilm.getOrDefault(otherId, 0)))));
+        top.sort(Comparator.comparingDouble(Neighbour::weight).reversed().thenComparingLong(Neighbour::filmId));
+        return top.size() > NEIGHBOURS ? List.copyOf(top.subList(0, NEIGHBOURS)) : List.copyOf(top);
+    }
+
+    private void clear() {
+        filmsByUser.clear();
+        likesByFilm.clear();
+        coLikes.clear();
+        neighbours.clear();
+    }
+
+    public record Neighbour(long filmId, double weight) {
+    }
+}
@@ -0,0 +1,246 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Плотные векторы признаков всех фильмов для рекомендаций по содержанию: жанры и рейтинг MPA
+ * в позиционном коде, режиссёры по {@link #DIRECTOR_BUCKETS} корзинам хеша и десятилетие выхода.
+ * Векторы нормированы и лежат подряд в одном массиве, поэтому косинусная мера с профилем
+ * пользователя — это скалярное произведение, которое считает {@link VectorScorer}.
+ *
+ * <p>Матрица строится целиком при первом обращении и после изменения справочника режиссёров:
+ * удаление режиссёра меняет векторы всех его фильмов. После изменения фильмов перекодируются
+ * только их строки, список изменённых фильмов даёт хранилище по версиям.
+ */
+@Component
+public class FilmFeatureIndex {
+    static final int GENRE_SLOTS = 16;
+    static final int RATING_SLOTS = 8;
+    static final int DIRECTOR_BUCKETS = 16;
+    static final int DECADE_SLOTS = 8;
+    static final int FIRST_DECADE = 1950;
+    public static final int DIMENSIONS = GENRE_SLOTS + RATING_SLOTS + DIRECTOR_BUCKETS + DECADE_SLOTS;
+    private static final int PAGE_SIZE = 10_000;
+    private static final Set<FilmField> FIELDS = EnumSet.of(FilmField.ID, FilmField.RELEASE_DATE,
+            FilmField.GENRES, FilmField.MPA, FilmField.DIRECTORS);
+    private static final Logger log = LoggerFactory.getLogger(FilmFeatureIndex.class);
+
+    private final FilmStorage filmStorage;
+    private final DirectorStorage directorStorage;
+    private final VectorScorer scorer = VectorScorer.create();
+    private volatile Features features;
+
+    public FilmFeatureIndex(@Qualifier("filmDbStorage") FilmStorage filmStorage, DirectorStorage directorStorage) {
+        this.filmStorage = filmStorage;
+        this.directorStorage = directorStorage;
+        log.info("Рекомендации по содержанию считаются через {}", scorer.getClass().getSimpleName());
+    }
+
+    /**
+     * Фильмы, ближайшие по косинусной мере к сумме векторов лайкнутых фильмов; сами лайкнутые
+     * пропускаются. При равной мере первым идёт фильм с меньшим id.
+     */
+    public List<Long> recommend(long[] likedFilmIds, int count) {
+        Features current = current();
+        float[] profile = new float[DIMENSIONS];
+        boolean known = false;
+        for (long filmId : likedFilmIds) {
+            int row = Arrays.binarySearch(current.filmIds(), filmId);
+            if (row >= 0) {
+                for (int i = 0; i < DIMENSIONS; i++) {
+                    profile[i] += current.vectors()[row * DIMENSIONS + i];
+                }
+                known = true;
+            }
+        }
+        // Среднее и сумма отличаются только длиной, а она при нормировке не важна
+        if (!known || !normalize(profile, 0)) {
+            return List.of();
+        }
+        float[] scores = new float[current.filmIds().length];
+        scorer.score(current.vectors(), profile, scores);
+        return top(current.filmIds(), scores, likedFilmIds, count);
+    }
+
+    private Features current() {
+        Features current = features;
+        if (current != null && current.version() == filmStorage.getVersion()) {
+            return current;
+        }
+        synchronized (this) {
+            if (features == null || features.version() != filmStorage.getVersion()) {
+                features = update(features);
+            }
+            return features;
+        }
+    }
+
+    // Версии читаются до загрузки: изменение во время неё приведёт к ещё одному обновлению
+    private Features update(Features previous) {
+        long version = filmStorage.getVersion();
+        long directorsVersion = directorStorage.getVersion();
+        VersionCounter.Changes changes = filmStorage.getChangedSince(
+                previous == null ? Long.MAX_VALUE : previous.filmsVersion());
+        if (previous == null || previous.directorsVersion() != directorsVersion || !changes.complete()
+                || changes.ids().size() > PAGE_SIZE) {
+            return build(version, directorsVersion, changes.version());
+        }
+        if (changes.ids().isEmpty()) {
+            return new Features(version, directorsVersion, changes.version(), previous.filmIds(), previous.vectors());
+        }
+        return apply(previous, version, directorsVersion, changes);
+    }
+
+    private Features build(long version, long directorsVersion, long filmsVersion) {
+        long start = System.nanoTime();
+        long[] filmIds = new long[PAGE_SIZE];
+        float[] vectors = new float[PAGE_SIZE * DIMENSIONS];
+        int size = 0;
+        long afterId = 0;
+        List<FilmView> page;
+        do {
+            page = filmStorage.findPage(afterId, PAGE_SIZE, FIELDS);
+            if (size + page.size() > filmIds.length) {
+                filmIds = Arrays.copyOf(filmIds, filmIds.length * 2);
+                vectors = Arrays.copyOf(vectors, filmIds.length * DIMENSIONS);
+            }
+            for (FilmView film : page) {
+                filmIds[size] = film.id();
+                encode(film, vectors, size * DIMENSIONS);
+                size++;
+                afterId = film.id();
+            }
+        } while (page.size() == PAGE_SIZE);
+        log.debug("Векторы признаков построены для {} фильмов за {} мс", size,
+                (System.nanoTime() - start) / 1_000_000);
+        return new Features(version, directorsVersion, filmsVersion, Arrays.copyOf(filmIds, size),
+                Arrays.copyOf(vectors, size * DIMENSIONS));
+    }
+
+    // Новая матрица собирается из строк прежней и перекодированных строк изменённых фильмов:
+    // прежней в это время могут пользоваться другие запросы
+    private Features apply(Features previous, long version, long directorsVersion, VersionCounter.Changes changes) {
+        long[] changedIds = changes.ids().stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<Long, FilmView> changed = new HashMap<>();
+        for (FilmView film : filmStorage.getFilmsByIds(changes.ids(), FIELDS)) {
+            changed.put(film.id(), film);
+        }
+        long[] oldIds = previous.filmIds();
+        int size = oldIds.length;
+        for (long id : changedIds) {
+            boolean indexed = Arrays.binarySearch(oldIds, id) >= 0;
+            if (indexed && !changed.containsKey(id)) {
+                size--;
+            } else if (!indexed && changed.containsKey(id)) {
+                size++;
+            }
+        }
+
+        long[] filmIds = new long[size];
+        float[] vectors = new float[size * DIMENSIONS];
+        int from = 0;
+        int to = 0;
+        for (long id : changedIds) {
+            int row = Arrays.binarySearch(oldIds, from, oldIds.length, id);
+            int end = row >= 0 ? row : -row - 1;
+            copyRows(previous, from, filmIds, vectors, to, end - from);
+            to += end - from;
+            from = row >= 0 ? row + 1 : end;
+            FilmView film = changed.get(id);
+            if (film != null) {
+                filmIds[to] = id;
+                encode(film, vectors, to * DIMENSIONS);
+                to++;
+            }
+        }
+        copyRows(previous, from, filmIds, vectors, to, oldIds.length - from);
+        log.debug("Векторы признаков обновлены для {} изменённых фильмов", changedIds.length);
+        return new Features(version, directorsVersion, changes.version(), filmIds, vectors);
+    }
+
+    private static void copyRows(Features source, int from, long[] filmIds, float[] vectors, int to, int count) {
+        System.arraycopy(source.filmIds(), from, filmIds, to, count);
+        System.arraycopy(source.vectors(), from * DIMENSIONS, vectors, to * DIMENSIONS, count * DIMENSIONS);
+    }
+
+    private static void encode(FilmView film, float[] vectors, int offset) {
+        for (int genreId : film.genreIds()) {
+            vectors[offset + (genreId - 1) % GENRE_SLOTS] = 1;
+        }
+        if (film.mpa() != null) {
+            vectors[offset + GENRE_SLOTS + (film.mpa().getId() - 1) % RATING_SLOTS] = 1;
+        }
+        for (long directorId : film.directorIds()) {
+            int bucket = Long.hashCode(directorId * 0x9E3779B97F4A7C15L) & (DIRECTOR_BUCKETS - 1);
+            vectors[offset + GENRE_SLOTS + RATING_SLOTS + bucket] += 1;
+        }
+        if (film.releaseDate() != null) {
+            int decade = Math.clamp((film.releaseDate().getYear() - FIRST_DECADE) / 10, 0, DECADE_SLOTS - 1);
+            vectors[offset + GENRE_SLOTS + RATING_SLOTS + DIRECTOR_BUCKETS + decade] = 1;
+        }
+        normalize(vectors, offset);
+    }
+
+    // Нулевой вектор остаётся нулевым: у фильма без признаков мера с любым профилем равна нулю
+    private static boolean normalize(float[] vectors, int offset) {
+        double norm = 0;
+        for (int i = offset; i < offset + DIMENSIONS; i++) {
+            norm += vectors[i] * vectors[i];
+        }
+        if (norm == 0) {
+            return false;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = offset; i < offset + DIMENSIONS; i++) {
+            vectors[i] *= scale;
+        }
+        return true;
+    }
+
+    // Лучшие count строк вставками в короткий упорядоченный список: count мал по сравнению с числом фильмов
+    private static List<Long> top(long[] filmIds, float[] scores, long[] likedFilmIds, int count) {
+        long[] liked = likedFilmIds.clone();
+        Arrays.sort(liked);
+        int[] best = new int[count];
+        int size = 0;
+        for (int row = 0; row < scores.length; row++) {
+            if (size == count && scores[row] <= scores[best[size - 1]]) {
+                continue;
+            }
+            if (Arrays.binarySearch(liked, filmIds[row]) >= 0) {
+                continue;
+            }
+            int position = size == count ? size - 1 : size++;
+            // Строки идут по возрастанию id, поэтому при равной мере более ранняя остаётся выше
+            while (position > 0 && scores[best[position - 1]] < scores[row]) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = row;
+        }
+        Long[] result = new Long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = filmIds[best[i]];
+        }
+        return List.of(result);
+    }
+
+    // version — общая версия хранилища фильмов, по ней проверяется актуальность без блокировки
+    private record Features(long version, long directorsVersion, long filmsVersion, long[] filmIds,
+                            float[] vectors) {
+    }
+}
@@ -0,0 +1,295 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * MinHash-подписи множеств лайкнувших фильм пользователей и LSH-индекс по ним для поиска фильмов
+ * с похожей аудиторией. Доля совпавших компонент подписей двух фильмов оценивает меру Жаккара
+ * их аудиторий. Подпись делится на {@link #BANDS} полос по {@link #ROWS} компонент, и кандидатами
+ * считаются фильмы, у которых совпала хотя бы одна полоса: пара с мерой s попадает в кандидаты
+ * с вероятностью 1 - (1 - s^4)^32, то есть почти наверняка при s от 0,6 и редко при s до 0,2.
+ *
+ * <p>Индекс строится из films_Likes при первом обращении. Новый лайк уменьшает компоненты подписи
+ * на месте; удаление пересчитывает подпись по базе, только если удалённый пользователь давал минимум
+ * хотя бы в одной компоненте. Запрос к базе выполняется без блокировки, а новая подпись ставится,
+ * только если за время запроса прежнюю никто не заменил, иначе пересчёт повторяется.
+ */
+@Component
+public class FilmSignatureIndex implements LikeIndex {
+    static final int BANDS = 32;
+    static final int ROWS = 4;
+    static final int HASHES = BANDS * ROWS;
+    private static final long SEED = 0x5EEDF11AL;
+    private static final Logger log = LoggerFactory.getLogger(FilmSignatureIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Соли хеш-функций постоянны, поэтому подписи после перестроения совпадают с обновлёнными
+    private final long[] salts = new SplittableRandom(SEED).longs(HASHES).toArray();
+    private final Map<Long, int[]> signatures = new HashMap<>();
+    private final Map<Long, Set<Long>> buckets = new HashMap<>();
+    private boolean loaded;
+
+    public FilmSignatureIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Фильмы-кандидаты из общих с фильмом полос по убыванию оценки меры Жаккара; при равной оценке
+     * первым идёт фильм с меньшим id. Фильм без лайков похожих не имеет.
+     */
+    public List<Match> similar(long filmId, int count) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int[] signature = signatures.get(filmId);
+            if (signature == null) {
+                return List.of();
+            }
+            Set<Long> candidates = new HashSet<>();
+            for (int band = 0; band < BANDS; band++) {
+                candidates.addAll(buckets.getOrDefault(bucketKey(signature, band), Set.of()));
+            }
+            candidates.remove(filmId);
+            List<Match> matches = new ArrayList<>(candidates.size());
+            for (Long candidateId : candidates) {
+                double similarity = similarity(signature, signatures.get(candidateId));
+                // Полосы сравниваются по хешу, поэтому совпадение хеша не гарантирует общих компонент
+                if (similarity > 0) {
+                    matches.add(new Match(candidateId, similarity));
+                }
+            }
+            matches.sort(Comparator.comparingDouble(Match::similarity).reversed().thenComparingLong(Match::filmId));
+            return matches.size() > count ? List.copyOf(matches.subList(0, count)) : List.copyOf(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addLike(long filmId, long userId) {
+        update(() -> {
+            int[] signature = signatures.get(filmId);
+            int[] updated = signature == null ? emptySignature() : signature.clone();
+            if (lower(updated, userId)) {
+                replace(filmId, signature, updated);
+            }
+        });
+    }
+
+    @Override
+    public void removeLike(long filmId, long userId) {
+        reload(filmId, userId);
+    }
+
+    @Override
+    public void removeFilm(long filmId) {
+        VersionCounter.afterCommit(() -> update(() -> replace(filmId, signatures.get(filmId), null)));
+    }
+
+    // Фильмы, на подписи которых влиял пользователь, находятся по его хешам без обращения к базе
+    @Override
+    public void removeUser(long userId) {
+        VersionCounter.afterCommit(() -> {
+            List<Long> affected;
+            lock.readLock().lock();
+            try {
+                affected = signatures.entrySet().stream()
+                        .filter(film -> isMinimum(film.getValue(), userId))
+                        .map(Map.Entry::getKey)
+                        .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+            affected.forEach(filmId -> reload(filmId, userId));
+        });
+    }
+
+    // Сбрасывает индекс после записи лайков в обход хранилища, например при массовой загрузке
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            signatures.clear();
+            buckets.clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            // До первой загрузки изменения уже есть в базе и попадут в индекс вместе с ней
+            if (loaded) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                signatures.clear();
+                buckets.clear();
+                jdbcTemplate.query("SELECT film_id, user_id FROM films_Likes", rs -> {
+                    lower(signatures.computeIfAbsent(rs.getLong(1), id -> emptySignature()), rs.getLong(2));
+                });
+                signatures.forEach(this::addToBuckets);
+                loaded = true;
+                log.debug("Индекс подписей аудитории построен: фильмов {}, корзин {}", signatures.size(),
+                        buckets.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Сохранённые подписи не меняются на месте, поэтому тот же экземпляр означает, что подпись не менялась
+    private void reload(long filmId, long userId) {
+        while (true) {
+            int[] signature;
+            lock.readLock().lock();
+            try {
+                signature = loaded ? signatures.get(filmId) : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (signature == null || !isMinimum(signature, userId)) {
+                return;
+            }
+            int[] reloaded = load(filmId);
+            lock.writeLock().lock();
+            try {
+                if (signatures.get(filmId) == signature) {
+                    replace(filmId, signature, reloaded);
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.trace("Подпись фильма {} изменилась во время пересчёта, пересчёт повторяется", filmId);
+        }
+    }
+
+    private int[] load(long filmId) {
+        int[] signature = emptySignature();
+        boolean[] liked = new boolean[1];
+        jdbcTemplate.query("SELECT user_id FROM films_Likes WHERE film_id = ?", rs -> {
+            lower(signature, rs.getLong(1));
+            liked[0] = true;
+        }, filmId);
+        return liked[0] ? signature : null;
+    }
+
+    // Подпись заменяется целиком, чтобы читатели не видели её наполовину обновлённой
+    private void replace(long filmId, int[] previous, int[] signature) {
+        if (previous != null) {
+            removeFromBuckets(filmId, previous);
+        }
+        if (signature == null) {
+            signatures.remove(filmId);
+        } else {
+            signatures.put(filmId, signature);
+            addToBuckets(filmId, signature);
+        }
+    }
+
+    private void addToBuckets(long filmId, int[] signature) {
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bucketKey(signature, band), key -> new HashSet<>()).add(filmId);
+        }
+    }
+
+    private void removeFromBuckets(long filmId, int[] signature) {
+        for (int band = 0; band < BANDS; band++) {
+            long key = bucketKey(signature, band);
+            Set<Long> bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(filmId) && bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    private boolean lower(int[] signature, long userId) {
+        boolean changed = false;
+        for (int i = 0; i < HASHES; i++) {
+            int hash = hash(userId, i);
+            if (hash < signature[i]) {
+                signature[i] = hash;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean isMinimum(int[] signature, long userId) {
+        for (int i = 0; i < HASHES; i++) {
+            if (hash(userId, i) == signature[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int hash(long userId, int function) {
+        long h = userId ^ salts[function];
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return (int) ((h ^ (h >>> 31)) >>> 32);
+    }
+
+    // Номер полосы входит в ключ, поэтому одинаковые значения разных полос не смешиваются
+    private static long bucketKey(int[] signature, int band) {
+        int hash = 1;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            hash = 31 * hash + signature[i];
+        }
+        return (long) band << 32 | hash & 0xFFFFFFFFL;
+    }
+
+    private static double similarity(int[] first, int[] second) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    private static int[] emptySignature() {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        return signature;
+    }
+
+    public record Match(long filmId, double similarity) {
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Ленивый обход выборки страницами по возрастающему ключу. Следующая страница читается только
+ * после того, как выдана предыдущая, поэтому в памяти держится одна страница, а Jackson пишет
+ * элементы в ответ по мере чтения. Каждый обход начинается с первой страницы.
+ */
+public class KeysetPages<T> implements Iterable<T> {
+    private final PageLoader<T> loader;
+    private final ToLongFunction<T> key;
+    private final int pageSize;
+
+    public KeysetPages(PageLoader<T> loader, ToLongFunction<T> key, int pageSize) {
+        this.loader = loader;
+        this.key = key;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private List<T> page = List.of();
+            private int position;
+            private long lastKey;
+            private boolean lastPage;
+
+            @Override
+            public boolean hasNext() {
+                if (position < page.size()) {
+                    return true;
+                }
+                if (lastPage) {
+                    return false;
+                }
+                page = loader.load(lastKey, pageSize);
+                position = 0;
+                lastPage = page.size() < pageSize;
+                if (page.isEmpty()) {
+                    return false;
+                }
+                lastKey = key.applyAsLong(page.getLast());
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(position++);
+            }
+        };
+    }
+
+    // Ключи положительны, поэтому первая страница читается после ключа 0
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> load(long afterKey, int count);
+    }
+}
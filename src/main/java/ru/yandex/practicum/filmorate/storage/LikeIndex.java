@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Структура в памяти, построенная по films_Likes. Об изменениях лайков индексам сообщает
+ * LikeBatchWriter после коммита, по одной итоговой операции на пару фильм-пользователь и в порядке
+ * коммитов; удаление фильма и пользователя индекс применяет после коммита, так как их лайки
+ * удаляются в базе каскадом. Индексы вызываются в порядке {@code @Order}.
+ */
+public interface LikeIndex {
+    void addLike(long filmId, long userId);
+
+    void removeLike(long filmId, long userId);
+
+    void removeFilm(long filmId);
+
+    void removeUser(long userId);
+}
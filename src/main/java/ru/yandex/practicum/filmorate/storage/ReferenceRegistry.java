@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Общие экземпляры рейтингов, жанров и режиссёров. Мапперы и хранилища берут объекты отсюда,
+ * поэтому все фильмы ответа ссылаются на один экземпляр каждого значения. При старте реестр
+ * заполняется из справочных таблиц, изменения режиссёров DirectorDbStorage передаёт сюда после коммита.
+ * Если имя в базе разошлось с сохранённым, экземпляр заменяется, так что устаревших
+ * значений реестр не возвращает. Общие экземпляры читают все потоки, поэтому они неизменяемы:
+ * сеттеры бросают UnsupportedOperationException. Класс лежит вне пакета dao, чтобы вызовы
+ * на каждую строку не проходили через прокси метрик и трассировки.
+ */
+@Component
+public class ReferenceRegistry {
+    private static final Logger log = LoggerFactory.getLogger(ReferenceRegistry.class);
+
+    private final Map<Integer, Rating> ratings = new ConcurrentHashMap<>();
+    private final Map<Integer, Genre> genres = new ConcurrentHashMap<>();
+    private final Map<Long, Director> directors = new ConcurrentHashMap<>();
+
+    public ReferenceRegistry(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.query("SELECT rating_id, rating_name FROM ratings", rs -> {
+            rating(rs.getInt(1), rs.getString(2));
+        });
+        jdbcTemplate.query("SELECT id, name FROM genres", rs -> {
+            genre(rs.getInt(1), rs.getString(2));
+        });
+        jdbcTemplate.query("SELECT director_id, name FROM directors", rs -> {
+            director(rs.getLong(1), rs.getString(2));
+        });
+        log.debug("Загружено рейтингов: {}, жанров: {}, режиссёров: {}", ratings.size(), genres.size(),
+                directors.size());
+    }
+
+    public Rating rating(int id, String name) {
+        Rating rating = ratings.get(id);
+        if (rating == null || !Objects.equals(rating.getName(), name)) {
+            rating = new SharedRating(id, name);
+            ratings.put(id, rating);
+        }
+        return rating;
+    }
+
+    public Genre genre(int id, String name) {
+        Genre genre = genres.get(id);
+        if (genre == null || !Objects.equals(genre.getName(), name)) {
+            genre = new SharedGenre(id, name);
+            genres.put(id, genre);
+        }
+        return genre;
+    }
+
+    public Director director(long id, String name) {
+        Director director = directors.get(id);
+        if (director == null || !Objects.equals(director.getName(), name)) {
+            director = new SharedDirector(id, name);
+            directors.put(id, director);
+        }
+        return director;
+    }
+
+    // Поиск без загрузки: null, если значения нет в реестре
+    public Genre genre(int id) {
+        return genres.get(id);
+    }
+
+    public Director director(long id) {
+        return directors.get(id);
+    }
+
+    public void removeDirector(long id) {
+        directors.remove(id);
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("Общий экземпляр справочника нельзя изменить");
+    }
+
+    private static final class SharedRating extends Rating {
+        private SharedRating(int id, String name) {
+            super(id, name);
+        }
+
+        @Override
+        public void setId(int id) {
+            throw immutable();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw immutable();
+        }
+    }
+
+    private static final class SharedGenre extends Genre {
+        private SharedGenre(int id, String name) {
+            super(id, name);
+        }
+
+        @Override
+        public void setId(int id) {
+            throw immutable();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw immutable();
+        }
+    }
+
+    private static final class SharedDirector extends Director {
+        private SharedDirector(long id, String name) {
+            super(id, name);
+        }
+
+        @Override
+        public void setId(Long id) {
+            throw immutable();
+        }
+
+        @Override
+        public void setName(String name) {
+            throw immutable();
+        }
+    }
+}
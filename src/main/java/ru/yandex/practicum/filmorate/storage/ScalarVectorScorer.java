@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage;
+
+public class ScalarVectorScorer implements VectorScorer {
+
+    @Override
+    public void score(float[] rows, float[] query, float[] scores) {
+        int dimensions = query.length;
+        for (int row = 0, offset = 0; row < scores.length; row++, offset += dimensions) {
+            float sum = 0;
+            for (int i = 0; i < dimensions; i++) {
+                sum += rows[offset + i] * query[i];
+            }
+            scores[row] = sum;
+        }
+    }
+}
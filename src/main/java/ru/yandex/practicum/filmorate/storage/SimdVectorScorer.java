@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Сумма по строке копится в векторе регистра и сворачивается один раз на строку
+public class SimdVectorScorer implements VectorScorer {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void score(float[] rows, float[] query, float[] scores) {
+        int dimensions = query.length;
+        int bound = SPECIES.loopBound(dimensions);
+        for (int row = 0, offset = 0; row < scores.length; row++, offset += dimensions) {
+            FloatVector sum = FloatVector.zero(SPECIES);
+            int i = 0;
+            for (; i < bound; i += SPECIES.length()) {
+                sum = FloatVector.fromArray(SPECIES, rows, offset + i)
+                        .fma(FloatVector.fromArray(SPECIES, query, i), sum);
+            }
+            float total = sum.reduceLanes(VectorOperators.ADD);
+            for (; i < dimensions; i++) {
+                total += rows[offset + i] * query[i];
+            }
+            scores[row] = total;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Скалярные произведения запроса со всеми строками плотной матрицы, записанной подряд по строкам.
+ * Векторная реализация выбирается, если приложение собрано в профиле simd и JVM запущена
+ * с модулем jdk.incubator.vector.
+ */
+public interface VectorScorer {
+    String VECTOR_MODULE = "jdk.incubator.vector";
+    String SIMD_SCORER = "ru.yandex.practicum.filmorate.storage.SimdVectorScorer";
+
+    // scores[i] — произведение query и строки i, которая начинается в rows с i * query.length
+    void score(float[] rows, float[] query, float[] scores);
+
+    // Класс с векторным API загружается только по имени: в обычной сборке его нет
+    static VectorScorer create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (VectorScorer) Class.forName(SIMD_SCORER).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                return new ScalarVectorScorer();
+            }
+        }
+        return new ScalarVectorScorer();
+    }
+}
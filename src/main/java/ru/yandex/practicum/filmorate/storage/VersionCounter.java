@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчик версий хранилища: общая версия коллекции и версии отдельных сущностей.
+ * Используется для построения ETag без обращения к базе. Внутри транзакции версия
+ * меняется только после коммита, чтобы новый ETag не выдавался вместе со старыми данными.
+ * Версии хранятся не больше чем для {@link #MAX_TRACKED} сущностей: старые записи сворачиваются
+ * в нижнюю границу, которая затем служит версией каждой сущности без своей записи.
+ */
+public class VersionCounter {
+    static final int MAX_TRACKED = 100_000;
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    // Не меньше любой свёрнутой версии, поэтому версия сущности при сворачивании не уменьшается
+    private volatile long floor;
+
+    public void touch() {
+        afterCommit(version::incrementAndGet);
+    }
+
+    // Под блокировкой, чтобы changedSince не увидел общую версию без версии сущности
+    public void touch(Long id) {
+        afterCommit(() -> {
+            synchronized (versions) {
+                versions.put(id, version.incrementAndGet());
+                if (versions.size() > MAX_TRACKED) {
+                    fold(version.get() - MAX_TRACKED / 2);
+                }
+            }
+        });
+    }
+
+    public long get() {
+        return version.get();
+    }
+
+    public long get(Long id) {
+        return versions.getOrDefault(id, floor);
+    }
+
+    /**
+     * Сущности, изменённые или удалённые после общей версии since, и общая версия, на которую
+     * список полон. Перебирает все хранимые версии, поэтому подходит для редких проверок. Если
+     * изменения после since уже свёрнуты, список неполон и вызывающий перестраивает данные целиком.
+     */
+    public Changes changedSince(long since) {
+        synchronized (versions) {
+            Set<Long> ids = new HashSet<>();
+            versions.forEach((id, changed) -> {
+                if (changed > since) {
+                    ids.add(id);
+                }
+            });
+            return new Changes(version.get(), ids, since >= floor);
+        }
+    }
+
+    // Граница меняется раньше удаления записей: get без блокировки не вернёт старую границу вместо версии
+    private void fold(long newFloor) {
+        floor = newFloor;
+        versions.values().removeIf(changed -> changed <= newFloor);
+    }
+
+    // Вне транзакции действие выполняется сразу
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public record Changes(long version, Set<Long> ids, boolean complete) {
+    }
+}
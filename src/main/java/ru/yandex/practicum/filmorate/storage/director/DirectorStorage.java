@@ -14,4 +14,6 @@ public interface DirectorStorage {
     Director getById(Long id);
 
     Collection<Director> findAll();
+
+    long getVersion();
 }
\ No newline at end of file
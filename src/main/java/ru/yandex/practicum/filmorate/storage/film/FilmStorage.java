@@ -1,27 +1,61 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface FilmStorage {
 
-    Collection<Film> findAll();
+    default Collection<FilmView> findAll() {
+        return findAll(FilmField.ALL);
+    }
+
+    Collection<FilmView> findAll(Set<FilmField> fields);
+
+    // Фильмы с id больше afterId по возрастанию id, не больше count штук
+    List<FilmView> findPage(long afterId, int count, Set<FilmField> fields);
 
     Film create(Film film);
 
-    Film update(Film newFilm);
+    FilmView update(Film newFilm);
 
     void deleteFilmById(Long id);
 
-    Film getFilmById(Long id);
+    default FilmView getFilmById(Long id) {
+        return getFilmById(id, FilmField.ALL);
+    }
+
+    FilmView getFilmById(Long id, Set<FilmField> fields);
+
+    List<FilmView> getFilmsByIds(Collection<Long> ids, Set<FilmField> fields);
+
+    Collection<FilmView> getPopularFilms(Integer count, Integer genreId, Integer year, Set<FilmField> fields);
+
+    Collection<FilmView> getCommonFilms(Long userId, Long friendId, Set<FilmField> fields);
+
+    List<FilmView> getFilmsByDirector(Long id, String sortBy, Set<FilmField> fields);
+
+    List<FilmView> searchFilms(String query, boolean isDirector, boolean isTitle, Set<FilmField> fields);
 
-    Collection<Film> getPopularFilms(Integer count, Integer genreId, Integer year);
+    long getVersion();
 
-    Collection<Film> getCommonFilms(Long userId, Long friendId);
+    long getVersion(Long id);
 
-    List<Film> getFilmsByDirector(Long id, String sortBy);
+    // Фильмы, созданные, изменённые или удалённые после версии since из прошлого ответа.
+    // Изменения справочника режиссёров сюда не входят
+    VersionCounter.Changes getChangedSince(long since);
 
-    List<Film> searchFilms(String query, boolean isDirector, boolean isTitle);
-}
\ No newline at end of file
+    // Версии только растут, поэтому сумма меняется при изменении или удалении любого из фильмов
+    default long getVersion(long[] ids) {
+        long version = 0;
+        for (long id : ids) {
+            version += getVersion(id);
+        }
+        return version;
+    }
+}
@@ -10,6 +10,9 @@ import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -18,6 +21,7 @@ import java.util.*;
 @Qualifier("InMemoryFilmStorage")
 public class InMemoryFilmStorage implements FilmStorage {
     private final Map<Long, Film> films = new HashMap<>();
+    private final VersionCounter versions = new VersionCounter();
     @JsonFormat(pattern = "yyyy-MM-dd")
     private static final LocalDate RELEASE_DATE_MIN = LocalDate.parse("1895-12-28");
     private static final Logger log = LoggerFactory.getLogger(FilmController.class);
@@ -30,8 +34,18 @@ public class InMemoryFilmStorage implements FilmStorage {
     };
 
     @Override
-    public Collection<Film> findAll() {
-        return films.values();
+    public Collection<FilmView> findAll(Set<FilmField> fields) {
+        return films.values().stream().map(film -> FilmView.of(film, fields)).toList();
+    }
+
+    @Override
+    public List<FilmView> findPage(long afterId, int count, Set<FilmField> fields) {
+        return films.values().stream()
+                .filter(film -> film.getId() > afterId)
+                .sorted(Comparator.comparing(Film::getId))
+                .limit(count)
+                .map(film -> FilmView.of(film, fields))
+                .toList();
     }
 
     @Override
@@ -70,13 +84,14 @@ public class InMemoryFilmStorage implements FilmStorage {
         log.trace("Установление id фильма: {}", film.getId());
 
         films.put(film.getId(), film);
+        versions.touch(film.getId());
         log.info("Добавление нового фильма {} c id: {}", film.getName(), film.getId());
 
         return film;
     }
 
     @Override
-    public Film update(Film newFilm) {
+    public FilmView update(Film newFilm) {
         if (newFilm.getId() == null) {
             log.warn("Пустой id фильма");
             throw new ValidationException("Id должен быть указан");
@@ -125,7 +140,8 @@ public class InMemoryFilmStorage implements FilmStorage {
                 oldFilm.setDuration(newFilm.getDuration());
             }
 
-            return newFilm;
+            versions.touch(oldFilm.getId());
+            return FilmView.of(newFilm, FilmField.ALL);
         }
 
         log.warn("Несуществующий id фильма: {}", newFilm.getId());
@@ -136,53 +152,76 @@ public class InMemoryFilmStorage implements FilmStorage {
     public void deleteFilmById(Long id) {
         checkFilmById(id);
         films.remove(id);
+        versions.touch(id);
     }
 
     @Override
-    public Film getFilmById(Long id) {
+    public FilmView getFilmById(Long id, Set<FilmField> fields) {
         checkFilmById(id);
-        return films.get(id);
+        return FilmView.of(films.get(id), fields);
     }
 
     @Override
-    public List<Film> getFilmsByDirector(Long directorId, String sortBy) {
+    public List<FilmView> getFilmsByIds(Collection<Long> ids, Set<FilmField> fields) {
+        return ids.stream().map(films::get).filter(Objects::nonNull).map(film -> FilmView.of(film, fields)).toList();
+    }
+
+    @Override
+    public List<FilmView> getFilmsByDirector(Long directorId, String sortBy, Set<FilmField> fields) {
         return Collections.emptyList();
     }
 
     @Override
-    public List<Film> searchFilms(String query, boolean director, boolean title) {
+    public List<FilmView> searchFilms(String query, boolean director, boolean title, Set<FilmField> fields) {
         return Collections.emptyList();
     }
 
     @Override
-    public Collection<Film> getPopularFilms(Integer count, Integer genreId, Integer year) {
+    public Collection<FilmView> getPopularFilms(Integer count, Integer genreId, Integer year, Set<FilmField> fields) {
         if (count <= 0) {
             log.warn("Количество выводимых фильмов должно быть больше 0: {}", count);
             throw new ValidationException("Количество выводимых фильмов должно быть больше 0");
         }
 
-        if (count > this.findAll().size()) {
-            log.debug("Количество выводимых фильмов {} больше общего количества {}. Выводятся все фильмы", count, this.findAll().size());
-            count = this.findAll().size();
+        if (count > films.size()) {
+            log.debug("Количество выводимых фильмов {} больше общего количества {}. Выводятся все фильмы", count, films.size());
+            count = films.size();
         }
 
-        return this.findAll().stream().sorted(filmComparator).limit(count).toList();
+        return films.values().stream().sorted(filmComparator).limit(count).map(film -> FilmView.of(film, fields)).toList();
 
     }
 
     @Override
-    public Collection<Film> getCommonFilms(Long userId, Long friendId) {
+    public Collection<FilmView> getCommonFilms(Long userId, Long friendId, Set<FilmField> fields) {
         return null;
     }
 
     public void addLikeToFilm(Long filmId, Long userId) {
         checkFilmById(filmId);
-        this.getFilmById(filmId).addLike(userId);
+        films.get(filmId).addLike(userId);
+        versions.touch(filmId);
     }
 
     public void deleteLikeFromFilm(Long filmId, Long userId) {
         checkFilmById(filmId);
-        this.getFilmById(filmId).getUserLikesIdSet().remove(userId);
+        films.get(filmId).getUserLikesIdSet().remove(userId);
+        versions.touch(filmId);
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(Long id) {
+        return versions.get(id);
+    }
+
+    @Override
+    public VersionCounter.Changes getChangedSince(long since) {
+        return versions.changedSince(since);
     }
 
     private long getNextId() {
@@ -1,6 +1,5 @@
 package ru.yandex.practicum.filmorate.storage.genre;
 
-import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.Collection;
@@ -14,5 +13,5 @@ public interface GenreStorage {
 
     List<Genre> findAllGenresByFilm(Long id);
 
-    Map<Long, List<Genre>> findAllGenresForFilmCollection(Collection<Film> films);
+    Map<Long, List<Genre>> findAllGenresForFilmCollection(Collection<Long> filmIds);
 }
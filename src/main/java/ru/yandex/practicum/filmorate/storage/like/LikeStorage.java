@@ -1,11 +1,26 @@
 package ru.yandex.practicum.filmorate.storage.like;
 
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+
+import java.util.List;
 import java.util.Set;
 
 public interface LikeStorage {
+    // Вместе с лайком записывается событие ленты; вызов возвращается после коммита
     void addLike(Long id, Long userId);
 
     void removeLike(Long id, Long userId);
 
+    // Применяет изменения одной транзакцией; если хотя бы один id не найден, не применяется ничего
+    void applyLikes(List<LikeOperation> operations);
+
     Set<Long> getLikes(Long filmId);
+
+    // Страница id лайкнувших по возрастанию: следующая начинается после последнего id предыдущей
+    List<Long> getLikes(Long filmId, long afterUserId, int count);
+
+    long getVersion();
+
+    // Меняется при изменении лайков фильма, а значит и его likesCount
+    long getVersion(Long filmId);
 }
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import java.util.List;
+
+public interface RecommendationStorage {
+    // Id фильмов в сохранённом порядке; пустой список, если для пользователя ничего не сохранено
+    List<Long> getRecommendations(long userId);
+
+    void deleteAll();
+
+    // filmIds[i] — рекомендации пользователя userIds[i]
+    void saveAll(long[] userIds, long[][] filmIds);
+}
@@ -8,6 +8,7 @@ import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.VersionCounter;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -16,6 +17,7 @@ import java.util.*;
 @Qualifier("InMemoryUserStorage")
 public class InMemoryUserStorage implements UserStorage {
     private final Map<Long, User> users = new HashMap<>();
+    private final VersionCounter versions = new VersionCounter();
     private static final Logger log = LoggerFactory.getLogger(InMemoryUserStorage.class);
 
     @Override
@@ -57,6 +59,7 @@ public class InMemoryUserStorage implements UserStorage {
         log.trace("Установление id пользователя: {}", user.getId());
 
         users.put(user.getId(), user);
+        versions.touch(user.getId());
         log.info("Добавление нового пользователя {} c id: {}", user.getLogin(), user.getId());
 
         return user;
@@ -69,6 +72,7 @@ public class InMemoryUserStorage implements UserStorage {
 
         log.info("Добавление пользователю с id={} в список друзей пользователя c id={}", idUser, idFriend);
         this.getUserById(idUser).addFriend(idFriend);
+        versions.touch(idUser);
     }
 
     public void deleteFriendFromUser(Long idUser, Long idFriend) {
@@ -78,6 +82,7 @@ public class InMemoryUserStorage implements UserStorage {
 
         log.info("Удаление id={} из списка друзей пользователя с id={}", idFriend, idUser);
         this.getUserById(idUser).getFriendsIdSet().remove(idFriend);
+        versions.touch(idUser);
     }
 
     @Override
@@ -85,6 +90,7 @@ public class InMemoryUserStorage implements UserStorage {
         checkUserById(userId);
 
         users.remove(userId);
+        versions.touch(userId);
     }
 
     @Override
@@ -132,6 +138,7 @@ public class InMemoryUserStorage implements UserStorage {
                 oldUser.setName(newUser.getName());
             }
 
+            versions.touch(oldUser.getId());
             return newUser;
 
         }
@@ -165,6 +172,21 @@ public class InMemoryUserStorage implements UserStorage {
         return users.get(userId);
     }
 
+    @Override
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        return ids.stream().map(users::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public long getVersion() {
+        return versions.get();
+    }
+
+    @Override
+    public long getVersion(Long id) {
+        return versions.get(id);
+    }
+
     private long getNextId() {
         long currentMaxId = users.keySet()
                 .stream()
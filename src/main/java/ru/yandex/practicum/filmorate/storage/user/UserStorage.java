@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface UserStorage {
     User create(User user);
@@ -14,4 +15,10 @@ public interface UserStorage {
     Collection<User> findAll();
 
     User getUserById(Long id);
+
+    List<User> getUsersByIds(Collection<Long> ids);
+
+    long getVersion();
+
+    long getVersion(Long id);
 }
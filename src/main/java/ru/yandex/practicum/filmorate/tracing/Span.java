@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+/**
+ * Участок трассировки. Время начала хранится по System.nanoTime, в экспорт
+ * попадает в микросекундах от эпохи, как ожидает формат Zipkin v2.
+ */
+public final class Span {
+    private final String traceId;
+    private final String id;
+    private final Span parent;
+    private final String name;
+    private final String kind;
+    private final String tag;
+    private final long startNanos;
+    private long durationNanos = -1;
+
+    Span(String traceId, String id, Span parent, String name, String kind, String tag, long startNanos) {
+        this.traceId = traceId;
+        this.id = id;
+        this.parent = parent;
+        this.name = name;
+        this.kind = kind;
+        this.tag = tag;
+        this.startNanos = startNanos;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Span getParent() {
+        return parent;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    void finish(long endNanos) {
+        durationNanos = endNanos - startNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    String toJson(long epochOffsetNanos) {
+        StringBuilder json = new StringBuilder(192 + (tag == null ? 0 : tag.length()));
+        json.append("{\"traceId\":\"").append(traceId).append("\",\"id\":\"").append(id).append('"');
+        if (parent != null) {
+            json.append(",\"parentId\":\"").append(parent.id).append('"');
+        }
+        json.append(",\"name\":");
+        appendString(json, name);
+        json.append(",\"timestamp\":").append((epochOffsetNanos + startNanos) / 1000)
+                .append(",\"duration\":").append(Math.max(durationNanos / 1000, 1))
+                .append(",\"localEndpoint\":{\"serviceName\":\"filmorate\"},\"tags\":{\"kind\":\"")
+                .append(kind).append('"');
+        if (tag != null) {
+            json.append(",\"sql\":");
+            appendString(json, tag);
+        }
+        return json.append("}}").toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
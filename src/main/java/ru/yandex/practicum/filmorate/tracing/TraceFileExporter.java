@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.util.FileSize;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Асинхронно пишет участки из логгера filmorate.tracing в файл, по одному JSON-объекту Zipkin v2
+ * в строке. Подключается только при включённой трассировке, путь файла задаётся явно.
+ */
+public class TraceFileExporter {
+    private final String file;
+    private final int queueSize;
+    private Logger logger;
+    private RollingFileAppender<ILoggingEvent> fileAppender;
+    private AsyncAppender asyncAppender;
+
+    public TraceFileExporter(String file, int queueSize) {
+        this.file = file;
+        this.queueSize = queueSize;
+    }
+
+    public void start() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%msg%n");
+        encoder.start();
+
+        fileAppender = new RollingFileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setName("TRACES");
+        fileAppender.setFile(file);
+        fileAppender.setEncoder(encoder);
+
+        SizeAndTimeBasedRollingPolicy<ILoggingEvent> rollingPolicy = new SizeAndTimeBasedRollingPolicy<>();
+        rollingPolicy.setContext(context);
+        rollingPolicy.setParent(fileAppender);
+        rollingPolicy.setFileNamePattern(file + ".%d{yyyy-MM-dd}.%i.gz");
+        rollingPolicy.setMaxFileSize(FileSize.valueOf("50MB"));
+        rollingPolicy.setMaxHistory(7);
+        rollingPolicy.setTotalSizeCap(FileSize.valueOf("1GB"));
+        fileAppender.setRollingPolicy(rollingPolicy);
+        rollingPolicy.start();
+        fileAppender.start();
+
+        // Участки не отбрасываются, пока очередь не заполнена целиком; поток запроса не блокируется
+        asyncAppender = new AsyncAppender();
+        asyncAppender.setContext(context);
+        asyncAppender.setName("ASYNC_TRACES");
+        asyncAppender.setQueueSize(queueSize);
+        asyncAppender.setDiscardingThreshold(0);
+        asyncAppender.setNeverBlock(true);
+        asyncAppender.addAppender(fileAppender);
+        asyncAppender.start();
+
+        logger = context.getLogger("filmorate.tracing");
+        logger.addAppender(asyncAppender);
+    }
+
+    public void stop() {
+        logger.detachAppender(asyncAppender);
+        asyncAppender.stop();
+        fileAppender.stop();
+    }
+}
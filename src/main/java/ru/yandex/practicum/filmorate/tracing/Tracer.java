@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Текущий участок трассировки привязан к потоку и в другие потоки сам не переходит:
+ * задачу, которая должна продолжить трассировку, оборачивает {@link #wrap}. Завершённые
+ * участки пишутся в логгер filmorate.tracing, приёмник которому добавляет TracingConfig.
+ */
+public final class Tracer {
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final Logger exporter = LoggerFactory.getLogger("filmorate.tracing");
+    private static final long EPOCH_OFFSET_NANOS = System.currentTimeMillis() * 1_000_000 - System.nanoTime();
+
+    private Tracer() {
+    }
+
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    // Участок обработки запроса продолжает трассировку, переданную в поток через wrap, или начинает новую
+    public static Span startRequest(String name, String kind) {
+        return start(CURRENT.get(), name, kind, null);
+    }
+
+    // Возвращает null вне трассировки, поэтому вызовы вне HTTP-запросов ничего не пишут
+    public static Span startChild(String name, String kind, String tag) {
+        Span parent = CURRENT.get();
+        return parent == null ? null : start(parent, name, kind, tag);
+    }
+
+    public static void finish(Span span) {
+        span.finish(System.nanoTime());
+        if (span.getParent() == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(span.getParent());
+        }
+        if (exporter.isInfoEnabled()) {
+            exporter.info(span.toJson(EPOCH_OFFSET_NANOS));
+        }
+    }
+
+    // Задача выполняется в другом потоке как потомок parent; после неё поток возвращается в прежнее состояние
+    public static <T> Callable<T> wrap(Span parent, Callable<T> task) {
+        if (parent == null) {
+            return task;
+        }
+        return () -> {
+            Span previous = CURRENT.get();
+            CURRENT.set(parent);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    private static Span start(Span parent, String name, String kind, String tag) {
+        String traceId = parent == null ? newId() : parent.getTraceId();
+        Span span = new Span(traceId, newId(), parent, name, kind, tag, System.nanoTime());
+        CURRENT.set(span);
+        return span;
+    }
+
+    private static String newId() {
+        String hex = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+}
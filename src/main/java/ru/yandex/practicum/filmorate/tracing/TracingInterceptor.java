@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Открывает участок на вызов метода контроллера, сервиса или хранилища.
+ * Вызов контроллера начинает трассировку (для подзапроса пакета — продолжает трассировку пакета),
+ * остальные становятся его потомками.
+ */
+public class TracingInterceptor implements MethodInterceptor {
+    private final Map<Method, Target> targets = new ConcurrentHashMap<>();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Target target = targets.computeIfAbsent(invocation.getMethod(), method -> Target.of(invocation));
+        Span span = target.kind().equals("controller")
+                ? Tracer.startRequest(target.name(), target.kind())
+                : Tracer.startChild(target.name(), target.kind(), null);
+        if (span == null) {
+            return invocation.proceed();
+        }
+        try {
+            return invocation.proceed();
+        } finally {
+            Tracer.finish(span);
+        }
+    }
+
+    private record Target(String name, String kind) {
+
+        static Target of(MethodInvocation invocation) {
+            Class<?> type = invocation.getThis().getClass();
+            String kind = AnnotatedElementUtils.hasAnnotation(type, RestController.class) ? "controller"
+                    : AnnotatedElementUtils.hasAnnotation(type, Service.class) ? "service"
+                    : "storage";
+            return new Target(type.getSimpleName() + "." + invocation.getMethod().getName(), kind);
+        }
+    }
+}
@@ -11,6 +11,7 @@ DROP TABLE IF EXISTS film_director CASCADE;
 
 DROP TABLE IF EXISTS reviews CASCADE;
 DROP TABLE IF EXISTS reviews_grade CASCADE;
+DROP TABLE IF EXISTS user_recommendations CASCADE;
 
 CREATE TABLE IF NOT EXISTS users (
     user_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -49,6 +50,7 @@ CREATE TABLE IF NOT EXISTS films_Genres (
 CREATE TABLE IF NOT EXISTS films_Likes (
     film_id BIGINT,
     user_id BIGINT,
+    PRIMARY KEY (film_id, user_id),
     FOREIGN KEY (film_id) REFERENCES films(film_id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
 );
@@ -97,6 +99,13 @@ CREATE TABLE IF NOT EXISTS reviews_grade (
 
 
 
+CREATE TABLE IF NOT EXISTS user_recommendations (
+    user_id BIGINT NOT NULL,
+    ordinal INTEGER NOT NULL,
+    film_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, ordinal)
+);
+
 CREATE TABLE IF NOT EXISTS events (
     event_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     user_id BIGINT,
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.config.BinaryFormatsConfig;
+import ru.yandex.practicum.filmorate.loadtest.DatasetGenerator;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Запуск: mvn test -Dtest=BinaryFormatBenchmark -Dbenchmark=true [-Dformat.films=10000]
+// Размер ответа GET /films со всеми полями и время его записи и разбора в JSON, CBOR и Smile.
+// Пишутся те же мапперы, что используют конвертеры ответов; чтение из базы не учитывается.
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class BinaryFormatBenchmark {
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 300;
+    private static final Logger log = LoggerFactory.getLogger(BinaryFormatBenchmark.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FilmService filmService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BinaryFormatsConfig binaryFormats;
+
+    @Test
+    public void compareFormats() throws Exception {
+        int films = Integer.getInteger("format.films", 10_000);
+        new DatasetGenerator(jdbcTemplate, Path.of("target", "benchmark", "format-csv"), 1)
+                .generate(new DatasetGenerator.Scale(1_000, films, 500, 1, 1, 0, 0));
+        Collection<FilmView> response = filmService.findAll(FilmField.ALL);
+
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("JSON", objectMapper);
+        mappers.put("CBOR", binaryFormats.cborMapper());
+        mappers.put("Smile", binaryFormats.smileMapper());
+        for (Map.Entry<String, ObjectMapper> format : mappers.entrySet()) {
+            measure(format.getKey(), format.getValue(), response);
+        }
+    }
+
+    private void measure(String name, ObjectMapper mapper, Collection<FilmView> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 << 20);
+        for (int i = 0; i < WARMUP; i++) {
+            out.reset();
+            mapper.writeValue(out, response);
+            mapper.readTree(out.toByteArray());
+        }
+
+        long encode = 0;
+        long decode = 0;
+        long nodes = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            out.reset();
+            long start = System.nanoTime();
+            mapper.writeValue(out, response);
+            encode += System.nanoTime() - start;
+            byte[] body = out.toByteArray();
+            start = System.nanoTime();
+            nodes += mapper.readTree(body).size();
+            decode += System.nanoTime() - start;
+        }
+        if (nodes != (long) ITERATIONS * response.size()) {
+            throw new IllegalStateException("Разобрано " + nodes + " фильмов");
+        }
+        log.info("{}: {} фильмов, {} Б ({} Б на фильм), запись {} мс, разбор {} мс", name, response.size(),
+                out.size(), Math.round((double) out.size() / response.size()),
+                String.format("%.2f", encode / 1e6 / ITERATIONS), String.format("%.2f", decode / 1e6 / ITERATIONS));
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.loadtest.DatasetGenerator;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+// Запуск: mvn test -Dtest=DatasetLoadBenchmark -Dbenchmark=true
+// Время генерации и загрузки набора около 10 млн лайков в файловую базу; объём задают свойства dataset.*
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:file:./target/benchmark/dataset")
+public class DatasetLoadBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(DatasetLoadBenchmark.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void loadDataset() {
+        DatasetGenerator.Scale scale = DatasetGenerator.Scale.fromSystemProperties("dataset",
+                new DatasetGenerator.Scale(1_000_000, 200_000, 5_000, 10, 10, 0.2, 3));
+        long start = System.nanoTime();
+        Map<String, Long> counts = new DatasetGenerator(jdbcTemplate, Path.of("target", "benchmark", "dataset-csv"), 1)
+                .generate(scale);
+        log.info("Набор {} загружен за {} с: {}", scale, String.format("%.1f", (System.nanoTime() - start) / 1e9),
+                counts);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.ErrorResponse;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Запуск: mvn test -Dtest=ErrorResponseBenchmark -Dbenchmark=true
+// Память и время на ответ 404/400: исключение со стеком в теле ответа против исключения без стека и ErrorResponse
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+public class ErrorResponseBenchmark {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+    private static final Logger log = LoggerFactory.getLogger(ErrorResponseBenchmark.class);
+    // Примерная глубина стека при выбросе исключения из хранилища внутри Spring MVC
+    private static final int STACK_DEPTH = 120;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void compareErrorResponses() throws Exception {
+        Callable<byte[]> legacy = () -> objectMapper.writeValueAsBytes(throwAt(STACK_DEPTH,
+                () -> new RuntimeException("Film not found")));
+        Callable<byte[]> stackless = () -> objectMapper.writeValueAsBytes(new ErrorResponse(throwAt(STACK_DEPTH,
+                () -> new NotFoundException("Film not found")).getMessage()));
+
+        measure("со стеком в теле", legacy, WARMUP);
+        measure("без стека", stackless, WARMUP);
+        measure("со стеком в теле", legacy, ITERATIONS);
+        measure("без стека", stackless, ITERATIONS);
+
+        RequestBuilder notFound = get("/films/999");
+        RequestBuilder badRequest = post("/films").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"\", \"description\": \"\", \"releaseDate\": \"2000-01-01\", " +
+                        "\"duration\": 100, \"mpa\": {\"id\": 1}}");
+        measure("GET /films/999", () -> mockMvc.perform(notFound).andReturn(), 2_000);
+        measure("GET /films/999", () -> mockMvc.perform(notFound).andReturn(), 10_000);
+        measure("POST /films 400", () -> mockMvc.perform(badRequest).andReturn(), 2_000);
+        measure("POST /films 400", () -> mockMvc.perform(badRequest).andReturn(), 10_000);
+    }
+
+    private static RuntimeException throwAt(int depth, java.util.function.Supplier<RuntimeException> exception) {
+        if (depth == 0) {
+            try {
+                throw exception.get();
+            } catch (RuntimeException e) {
+                return e;
+            }
+        }
+        return throwAt(depth - 1, exception);
+    }
+
+    private static void measure(String name, Callable<?> operation, int iterations) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.call();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        log.info("{}: {} мкс, {} байт на операцию", name, String.format("%.2f", elapsed / 1e3 / iterations),
+                allocated / iterations);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Запуск: mvn test -Dtest=LikeWriteBenchmark -Dbenchmark=true
+// Пропускная способность и задержки лайков при 1, 16 и 256 одновременных клиентах
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:file:./target/benchmark/like-write;WRITE_DELAY=0")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class LikeWriteBenchmark {
+    private static final int USERS = 1000;
+    private static final int FILMS = 200;
+    private static final int OPERATIONS = 8000;
+    private static final Logger log = LoggerFactory.getLogger(LikeWriteBenchmark.class);
+
+    private final FilmService filmService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void measureLikeThroughput() throws Exception {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new Object[]{"user" + i + "@mail", "login" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) " +
+                "VALUES (?, ?, 'name', DATE '1990-01-01')", users);
+        List<Object[]> films = new ArrayList<>();
+        for (int i = 1; i <= FILMS; i++) {
+            films.add(new Object[]{"Film " + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (name, description, release_date, duration, rating_id) " +
+                "VALUES (?, '', DATE '2000-01-01', 100, 1)", films);
+
+        run(16, OPERATIONS / 4);
+        for (int clients : new int[]{1, 16, 256}) {
+            run(clients, OPERATIONS);
+        }
+    }
+
+    private void run(int clients, int operations) throws Exception {
+        int perClient = Math.max(1, operations / clients);
+        long[][] latencies = new long[clients][perClient];
+        List<Future<?>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(clients)) {
+            for (int c = 0; c < clients; c++) {
+                long[] clientLatencies = latencies[c];
+                results.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < perClient; i++) {
+                        long filmId = random.nextLong(1, FILMS + 1);
+                        long userId = random.nextLong(1, USERS + 1);
+                        long operationStart = System.nanoTime();
+                        if (random.nextInt(4) == 0) {
+                            filmService.deleteLike(filmId, userId);
+                        } else {
+                            filmService.addLike(filmId, userId);
+                        }
+                        clientLatencies[i] = System.nanoTime() - operationStart;
+                    }
+                    return null;
+                }));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        log.info("клиентов {}: {} операций/с, p50 {} мс, p99 {} мс", clients, Math.round(all.length / seconds),
+                String.format("%.2f", percentile(all, 0.50)), String.format("%.2f", percentile(all, 0.99)));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import ru.yandex.practicum.filmorate.mappers.EventMapper;
+import ru.yandex.practicum.filmorate.mappers.FilmMapper;
+import ru.yandex.practicum.filmorate.mappers.IndexedRowMapper;
+import ru.yandex.practicum.filmorate.mappers.ReviewMapper;
+import ru.yandex.practicum.filmorate.mappers.UserMapper;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Запуск: mvn test -Dtest=MapperAllocationBenchmark -Dbenchmark=true
+// Байты и время на строку при разборе одного и того же ResultSet: поиск колонок по имени на каждой строке
+// против номеров колонок, найденных один раз. Выборка прокручивается заново, поэтому сам запрос не учитывается.
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class MapperAllocationBenchmark {
+    private static final int ROWS = 1_000;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 2_000;
+    private static final Logger log = LoggerFactory.getLogger(MapperAllocationBenchmark.class);
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private ReferenceRegistry registry;
+
+    @Test
+    public void measureAllocations() throws Exception {
+        seed();
+        measure("FilmMapper", "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.rating_id, " +
+                "r.rating_name FROM films AS f JOIN ratings AS r ON f.rating_id = r.rating_id",
+                new FilmMapper(FilmField.ALL, registry));
+        measure("UserMapper", "SELECT user_id, login, name, email, birthday FROM users", UserMapper.INSTANCE);
+        measure("ReviewMapper", "SELECT id, content, type, user_id, film_id, usefulness_rating FROM reviews",
+                new ReviewMapper());
+        measure("EventMapper", "SELECT * FROM events", EventMapper.INSTANCE);
+    }
+
+    private void measure(String name, String sql, IndexedRowMapper<?> mapper) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE,
+                     ResultSet.CONCUR_READ_ONLY);
+             ResultSet rs = statement.executeQuery(sql)) {
+            double[] byName = measure(rs, new RowMapperResultSetExtractor<>(mapper));
+            double[] byIndex = measure(rs, mapper.list());
+            log.info("{}: по именам {} Б и {} нс на строку, по номерам {} Б и {} нс на строку", name,
+                    Math.round(byName[0]), Math.round(byName[1]), Math.round(byIndex[0]), Math.round(byIndex[1]));
+        }
+    }
+
+    private double[] measure(ResultSet rs, ResultSetExtractor<? extends List<?>> extractor) throws Exception {
+        long rows = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            rs.beforeFirst();
+            rows += extractor.extractData(rs).size();
+        }
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            rs.beforeFirst();
+            rows += extractor.extractData(rs).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        double measured = (double) ITERATIONS * ROWS;
+        if (rows != (long) (WARMUP + ITERATIONS) * ROWS) {
+            throw new IllegalStateException("Прочитано " + rows + " строк");
+        }
+        return new double[]{bytes / measured, elapsed / measured};
+    }
+
+    private void seed() {
+        List<Object[]> films = new ArrayList<>();
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> reviews = new ArrayList<>();
+        List<Object[]> events = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            films.add(new Object[]{"Film " + i, "Description " + i, 100 + i % 60, i % 5 + 1});
+            users.add(new Object[]{"user" + i + "@mail", "user" + i, "User " + i});
+            reviews.add(new Object[]{"Review " + i, i % 2 == 0 ? "Positive" : "Negative", i, i});
+            events.add(new Object[]{i, i, "ADD", "LIKE", 1_700_000_000_000L + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (name, description, release_date, duration, rating_id) " +
+                "VALUES (?, ?, DATE '2000-01-01', ?, ?)", films);
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) " +
+                "VALUES (?, ?, ?, DATE '1990-01-01')", users);
+        jdbcTemplate.batchUpdate("INSERT INTO reviews (content, type, user_id, film_id, usefulness_rating) " +
+                "VALUES (?, ?, ?, ?, 0)", reviews);
+        jdbcTemplate.batchUpdate("INSERT INTO events (user_id, entity_id, operation, event_type, timestamp) " +
+                "VALUES (?, ?, ?, ?, ?)", events);
+    }
+}
@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.yandex.practicum.filmorate.metrics.LatencyHistogram;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Запуск: mvn test -Dtest=MetricsOverheadBenchmark -Dbenchmark=true
+// и для сравнения без метрик: -DargLine="-Dfilmorate.metrics.enabled=false"
+// Среднее время запроса на смеси чтений, стоимость вызова хранилища и одной записи в гистограмму
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+public class MetricsOverheadBenchmark {
+    private static final int FILMS = 300;
+    private static final int USERS = 100;
+    private static final int ROUNDS = 5;
+    private static final int ITERATIONS = 4_000;
+    private static final Logger log = LoggerFactory.getLogger(MetricsOverheadBenchmark.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private LikeStorage likeStorage;
+    @Value("${filmorate.metrics.enabled:true}")
+    private boolean metricsEnabled;
+
+    @Test
+    public void measureOverhead() throws Exception {
+        seed();
+        List<RequestBuilder> requests = List.of(
+                get("/films/popular"),
+                get("/films/17"),
+                get("/films/search").param("query", "film 1").param("by", "title"),
+                get("/users/5/recommendations"),
+                get("/films").param("ids", "1,2,3,4,5,6,7,8,9,10"));
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            mockMvc.perform(requests.get(i % requests.size())).andReturn();
+        }
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                mockMvc.perform(requests.get(i % requests.size())).andReturn();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / 1e3 / ITERATIONS);
+        }
+        log.info("Метрики {}: {} мкс на запрос", metricsEnabled ? "включены" : "выключены",
+                String.format("%.2f", best));
+
+        // Дешёвый метод хранилища: разница между запусками равна стоимости аспекта с записью в гистограмму
+        long versions = 0;
+        for (int i = 0; i < 10_000_000; i++) {
+            versions += likeStorage.getVersion();
+        }
+        long callStart = System.nanoTime();
+        for (int i = 0; i < 10_000_000; i++) {
+            versions += likeStorage.getVersion();
+        }
+        log.info("Вызов метода хранилища: {} нс ({})", String.format("%.1f", (System.nanoTime() - callStart) / 1e7),
+                versions % 10);
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 10_000_000; i++) {
+            histogram.record(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000_000; i++) {
+            histogram.record(System.nanoTime() - start);
+        }
+        log.info("Запись в гистограмму: {} нс", String.format("%.1f", (System.nanoTime() - start) / 1e7));
+    }
+
+    private void seed() {
+        List<Object[]> films = new ArrayList<>();
+        List<Object[]> genres = new ArrayList<>();
+        for (int i = 1; i <= FILMS; i++) {
+            films.add(new Object[]{"Film " + i, "Description " + i, 100, i % 5 + 1});
+            genres.add(new Object[]{i, i % 6 + 1});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (name, description, release_date, duration, rating_id) " +
+                "VALUES (?, ?, DATE '2000-01-01', ?, ?)", films);
+        jdbcTemplate.batchUpdate("INSERT INTO films_Genres (film_id, genre_id) VALUES (?, ?)", genres);
+
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> likes = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new Object[]{"user" + i + "@mail", "user" + i, "User " + i});
+            for (int j = 0; j < 20; j++) {
+                likes.add(new Object[]{(i * 7 + j * j) % FILMS + 1, i});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) " +
+                "VALUES (?, ?, ?, DATE '1990-01-01')", users);
+        jdbcTemplate.batchUpdate("MERGE INTO films_Likes (film_id, user_id) KEY (film_id, user_id) VALUES (?, ?)",
+                likes);
+    }
+}
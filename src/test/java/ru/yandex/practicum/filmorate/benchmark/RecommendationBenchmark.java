@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.loadtest.DatasetGenerator;
+import ru.yandex.practicum.filmorate.service.RecommendationBatch;
+import ru.yandex.practicum.filmorate.service.RecommendationCache;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.storage.CoLikeIndex;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+// Запуск: mvn test -Dtest=RecommendationBenchmark -Dbenchmark=true [-Drecommendation.users=20000 ...]
+// Время рекомендаций для случайных пользователей: прежний подбор самого похожего пользователя
+// запросом по лайкам против индекса совместных лайков, время построения индекса, скорость ночного
+// пересчёта всех пользователей, время ответа из его результатов и из кэша готовых ответов.
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class RecommendationBenchmark {
+    private static final int SAMPLES = 200;
+    private static final Logger log = LoggerFactory.getLogger(RecommendationBenchmark.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private CoLikeIndex coLikeIndex;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private RecommendationBatch recommendationBatch;
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Test
+    public void compareRecommenders() {
+        DatasetGenerator.Scale scale = DatasetGenerator.Scale.fromSystemProperties("recommendation",
+                new DatasetGenerator.Scale(20_000, 5_000, 500, 20, 0, 0, 0));
+        Map<String, Long> rows = new DatasetGenerator(jdbcTemplate,
+                Path.of("target", "benchmark", "recommendation-csv"), 1).generate(scale);
+        coLikeIndex.rebuild();
+
+        long start = System.nanoTime();
+        coLikeIndex.recommend(1L, 1);
+        log.info("Индекс по {} лайкам построен за {} с", rows.get("films_Likes"),
+                String.format("%.1f", (System.nanoTime() - start) / 1e9));
+
+        Random random = new Random(42);
+        long[] users = random.longs(SAMPLES, 1, scale.users() + 1).toArray();
+        report("Похожий пользователь (прежний)", users, this::mostSimilarUser);
+        report("Индекс совместных лайков", users, userId -> coLikeIndex.recommend(userId, 20));
+        report("Индекс и чтение фильмов", users, this::uncached);
+
+        RecommendationBatch.Report batch = recommendationBatch.run();
+        log.info("Пакетный пересчёт: {} пользователей за {} с, {} пользователей/с", batch.users(),
+                String.format("%.1f", batch.millis() / 1e3), Math.round(batch.usersPerSecond()));
+        report("Сохранённые рекомендации и чтение фильмов", users, this::uncached);
+        // Прогрев в report заполняет кэш, поэтому замеряются только попадания
+        report("Ответ из кэша", users, recommendationService::getRecommendationFilms);
+    }
+
+    private void report(String name, long[] users, LongConsumer recommender) {
+        for (long userId : users) {
+            recommender.accept(userId);
+        }
+        double[] millis = new double[users.length];
+        for (int i = 0; i < users.length; i++) {
+            long start = System.nanoTime();
+            recommender.accept(users[i]);
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        log.info("{}: медиана {} мс, p95 {} мс, максимум {} мс", name, String.format("%.2f", millis[millis.length / 2]),
+                String.format("%.2f", millis[(int) (millis.length * 0.95)]),
+                String.format("%.2f", millis[millis.length - 1]));
+    }
+
+    private void uncached(long userId) {
+        recommendationCache.invalidateAll();
+        recommendationService.getRecommendationFilms(userId);
+    }
+
+    // Алгоритм RecommendationService до индекса: лайки всех пользователей с общими фильмами одним запросом
+    private void mostSimilarUser(long userId) {
+        Map<Long, Set<Long>> usersFilms = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, film_id FROM films_Likes WHERE user_id IN (" +
+                "SELECT l.user_id FROM films_Likes AS l WHERE l.film_id IN (" +
+                "SELECT film_id FROM films_Likes WHERE user_id = ?))", rs -> {
+            usersFilms.computeIfAbsent(rs.getLong(1), id -> new HashSet<>()).add(rs.getLong(2));
+        }, userId);
+        Set<Long> liked = usersFilms.remove(userId);
+        if (liked == null) {
+            return;
+        }
+        long bestUser = -1;
+        int bestOverlap = 0;
+        for (Map.Entry<Long, Set<Long>> other : usersFilms.entrySet()) {
+            Set<Long> common = new HashSet<>(other.getValue());
+            common.retainAll(liked);
+            if (common.size() > bestOverlap) {
+                bestOverlap = common.size();
+                bestUser = other.getKey();
+            }
+        }
+        if (bestUser > 0) {
+            usersFilms.get(bestUser).removeAll(liked);
+        }
+    }
+}
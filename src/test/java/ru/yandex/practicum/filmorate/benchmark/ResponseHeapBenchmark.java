@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jol.info.GraphLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.loadtest.DatasetGenerator;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+// Запуск: mvn test -Dtest=ResponseHeapBenchmark -Dbenchmark=true [-Dresponse.films=100000]
+// Память, которую занимает ответ GET /films со всеми полями: разница занятой кучи после сборки мусора
+// с удерживаемым ответом и без него, а также размер графа объектов по JOL для FilmView и для Film с теми же данными
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class ResponseHeapBenchmark {
+    private static final int ROUNDS = 5;
+    private static final Logger log = LoggerFactory.getLogger(ResponseHeapBenchmark.class);
+
+    static {
+        // Unsafe не отдаёт смещения полей записей, JOL вычисляет их сам
+        System.setProperty("jol.magicFieldOffset", "true");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FilmService filmService;
+    @Autowired
+    private ReferenceRegistry registry;
+
+    @Test
+    public void measureResponseHeap() {
+        int films = Integer.getInteger("response.films", 100_000);
+        new DatasetGenerator(jdbcTemplate, Path.of("target", "benchmark", "response-csv"), 1)
+                .generate(new DatasetGenerator.Scale(1_000, films, 500, 1, 1, 0, 0));
+        filmService.findAll(FilmField.ALL);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long[] retained = new long[ROUNDS];
+        Collection<FilmView> response = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            response = null;
+            long before = usedAfterGc(memory);
+            response = filmService.findAll(FilmField.ALL);
+            retained[round] = usedAfterGc(memory) - before;
+        }
+        // Сборка мусора иногда не успевает освободить ответ предыдущего раунда, поэтому берётся медиана
+        Arrays.sort(retained);
+        long median = retained[ROUNDS / 2];
+
+        Set<Object> ratings = Collections.newSetFromMap(new IdentityHashMap<>());
+        long genreLinks = 0;
+        long directorLinks = 0;
+        List<Film> mutable = new ArrayList<>(response.size());
+        for (FilmView view : response) {
+            ratings.add(view.mpa());
+            genreLinks += view.genreIds().length;
+            directorLinks += view.directorIds().length;
+            mutable.add(toFilm(view));
+        }
+        log.info("Ответ на {} фильмов занимает {} МБ ({} Б на фильм); экземпляров рейтингов {}, " +
+                        "ссылок на жанры {}, на режиссёров {}", response.size(), String.format("%.1f", median / 1e6),
+                Math.round((double) median / response.size()), ratings.size(), genreLinks, directorLinks);
+
+        // Общие рейтинги, жанры и режиссёры входят в граф один раз, поэтому в обоих случаях учитываются почти даром
+        long viewBytes = GraphLayout.parseInstance(new ArrayList<>(response)).totalSize();
+        long filmBytes = GraphLayout.parseInstance(mutable).totalSize();
+        log.info("JOL: FilmView {} Б на фильм, Film с теми же ссылками {} Б на фильм",
+                Math.round((double) viewBytes / response.size()), Math.round((double) filmBytes / mutable.size()));
+    }
+
+    // Тот же фильм в изменяемой модели, как его собирало хранилище до FilmView
+    private Film toFilm(FilmView view) {
+        List<Genre> genres = new ArrayList<>();
+        for (int genreId : view.genreIds()) {
+            genres.add(registry.genre(genreId));
+        }
+        Set<Director> directors = new HashSet<>();
+        for (long directorId : view.directorIds()) {
+            directors.add(registry.director(directorId));
+        }
+        Film film = Film.builder()
+                .id(view.id())
+                .name(view.name())
+                .description(view.description())
+                .releaseDate(view.releaseDate())
+                .duration(view.duration())
+                .mpa(view.mpa())
+                .genres(genres)
+                .build();
+        film.setDirectors(directors);
+        return film;
+    }
+
+    private static long usedAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
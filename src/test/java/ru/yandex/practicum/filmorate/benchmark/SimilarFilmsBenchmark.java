@@ -0,0 +1,178 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.loadtest.DatasetGenerator;
+import ru.yandex.practicum.filmorate.storage.FilmSignatureIndex;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// Запуск: mvn test -Dtest=SimilarFilmsBenchmark -Dbenchmark=true [-Dsimilar.films=5000 ...]
+// Точность и время поиска похожих фильмов по MinHash и LSH против точного перебора всех фильмов
+// по мере Жаккара аудиторий. Полнота считается по точным десяти ближайшим с мерой выше порога.
+// Случайные лайки генератора почти не пересекаются, поэтому они заменяются группами фильмов с общей
+// аудиторией: у каждой группы своя доля общих зрителей, и мера внутри групп разбросана от 0,1 до 0,7.
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class SimilarFilmsBenchmark {
+    private static final int SAMPLES = 200;
+    private static final int TOP = 10;
+    private static final double[] THRESHOLDS = {0.0, 0.2, 0.4, 0.6};
+    private static final int GROUP = 5;
+    private static final int AUDIENCE = 40;
+    private static final int NOISE = 10;
+    private static final Logger log = LoggerFactory.getLogger(SimilarFilmsBenchmark.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FilmSignatureIndex filmSignatureIndex;
+
+    @Test
+    public void compareWithExactJaccard() {
+        DatasetGenerator.Scale scale = DatasetGenerator.Scale.fromSystemProperties("similar",
+                new DatasetGenerator.Scale(20_000, 5_000, 500, 1, 0, 0, 0));
+        new DatasetGenerator(jdbcTemplate, Path.of("target", "benchmark", "similar-csv"), 1).generate(scale);
+        plantAudiences(scale);
+        filmSignatureIndex.rebuild();
+
+        long start = System.nanoTime();
+        filmSignatureIndex.similar(1L, 1);
+        log.info("Индекс подписей построен за {} с", String.format("%.1f", (System.nanoTime() - start) / 1e9));
+
+        Map<Long, long[]> likers = loadLikers();
+        long[] filmIds = likers.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        Random random = new Random(42);
+        long[] samples = random.longs(SAMPLES, 0, filmIds.length).map(i -> filmIds[(int) i]).toArray();
+
+        int[] found = new int[THRESHOLDS.length];
+        int[] expected = new int[THRESHOLDS.length];
+        double error = 0;
+        int estimates = 0;
+        double[] exactMillis = new double[SAMPLES];
+        double[] lshMillis = new double[SAMPLES];
+        for (int s = 0; s < SAMPLES; s++) {
+            long filmId = samples[s];
+            long exactStart = System.nanoTime();
+            List<double[]> exact = exactTop(filmId, likers, filmIds);
+            exactMillis[s] = (System.nanoTime() - exactStart) / 1e6;
+
+            long lshStart = System.nanoTime();
+            List<FilmSignatureIndex.Match> matches = filmSignatureIndex.similar(filmId, TOP);
+            lshMillis[s] = (System.nanoTime() - lshStart) / 1e6;
+
+            Map<Long, Double> estimated = new HashMap<>();
+            for (FilmSignatureIndex.Match match : matches) {
+                estimated.put(match.filmId(), match.similarity());
+                error += Math.abs(match.similarity() - jaccard(likers.get(filmId), likers.get(match.filmId())));
+                estimates++;
+            }
+            for (double[] neighbour : exact) {
+                for (int t = 0; t < THRESHOLDS.length; t++) {
+                    if (neighbour[1] > THRESHOLDS[t] || THRESHOLDS[t] == 0 && neighbour[1] > 0) {
+                        expected[t]++;
+                        if (estimated.containsKey((long) neighbour[0])) {
+                            found[t]++;
+                        }
+                    }
+                }
+            }
+        }
+        for (int t = 0; t < THRESHOLDS.length; t++) {
+            log.info("Полнота среди точных {} ближайших с мерой больше {}: {} ({} из {})", TOP, THRESHOLDS[t],
+                    String.format("%.3f", expected[t] == 0 ? 1.0 : (double) found[t] / expected[t]), found[t],
+                    expected[t]);
+        }
+        log.info("Средняя ошибка оценки меры у найденных: {} по {} парам",
+                String.format("%.3f", estimates == 0 ? 0 : error / estimates), estimates);
+        report("Точный перебор", exactMillis);
+        report("MinHash и LSH", lshMillis);
+    }
+
+    private void plantAudiences(DatasetGenerator.Scale scale) {
+        Random random = new Random(7);
+        List<Object[]> likes = new ArrayList<>();
+        for (int first = 1; first <= scale.films(); first += GROUP) {
+            long[] audience = random.longs(AUDIENCE, 1, scale.users() + 1).distinct().toArray();
+            double share = 0.3 + random.nextDouble() * 0.7;
+            for (int filmId = first; filmId < first + GROUP && filmId <= scale.films(); filmId++) {
+                Set<Long> users = new HashSet<>();
+                for (long userId : audience) {
+                    if (random.nextDouble() < share) {
+                        users.add(userId);
+                    }
+                }
+                random.longs(NOISE, 1, scale.users() + 1).forEach(users::add);
+                for (Long userId : users) {
+                    likes.add(new Object[]{filmId, userId});
+                }
+            }
+        }
+        jdbcTemplate.update("DELETE FROM films_Likes");
+        jdbcTemplate.batchUpdate("INSERT INTO films_Likes (film_id, user_id) VALUES (?, ?)", likes);
+    }
+
+    private Map<Long, long[]> loadLikers() {
+        Map<Long, List<Long>> lists = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, user_id FROM films_Likes", rs -> {
+            lists.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getLong(2));
+        });
+        Map<Long, long[]> likers = new HashMap<>();
+        lists.forEach((filmId, users) -> likers.put(filmId,
+                users.stream().mapToLong(Long::longValue).sorted().toArray()));
+        return likers;
+    }
+
+    // Пары {id фильма, мера Жаккара} десяти фильмов с наибольшей мерой
+    private List<double[]> exactTop(long filmId, Map<Long, long[]> likers, long[] filmIds) {
+        long[] audience = likers.get(filmId);
+        List<double[]> all = new ArrayList<>();
+        for (long otherId : filmIds) {
+            if (otherId != filmId) {
+                all.add(new double[]{otherId, jaccard(audience, likers.get(otherId))});
+            }
+        }
+        all.sort(Comparator.comparingDouble((double[] pair) -> pair[1]).reversed());
+        return all.subList(0, Math.min(TOP, all.size()));
+    }
+
+    private static double jaccard(long[] first, long[] second) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] == second[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (first.length + second.length - common);
+    }
+
+    private static void report(String name, double[] millis) {
+        Arrays.sort(millis);
+        log.info("{}: медиана {} мс, p95 {} мс", name, String.format("%.2f", millis[millis.length / 2]),
+                String.format("%.2f", millis[(int) (millis.length * 0.95)]));
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.storage.FilmFeatureIndex;
+import ru.yandex.practicum.filmorate.storage.ScalarVectorScorer;
+import ru.yandex.practicum.filmorate.storage.SimdVectorScorer;
+import ru.yandex.practicum.filmorate.storage.VectorScorer;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Запуск: mvn test -Psimd -Dtest=VectorScorerBenchmark -Dbenchmark=true [-Dscorer.films=1000000]
+// Время расчёта косинусной меры профиля со всеми фильмами: скалярный цикл против векторного API.
+// Векторы похожи на признаки FilmFeatureIndex: несколько ненулевых компонент, нормированы.
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class VectorScorerBenchmark {
+    private static final int WARMUP = 30;
+    private static final int ROUNDS = 50;
+    private static final Logger log = LoggerFactory.getLogger(VectorScorerBenchmark.class);
+
+    @Test
+    public void compareScorers() {
+        int films = Integer.getInteger("scorer.films", 1_000_000);
+        int dimensions = FilmFeatureIndex.DIMENSIONS;
+        SplittableRandom random = new SplittableRandom(42);
+        float[] rows = new float[films * dimensions];
+        for (int film = 0; film < films; film++) {
+            for (int feature = 0; feature < 5; feature++) {
+                rows[film * dimensions + random.nextInt(dimensions)] = 1;
+            }
+            normalize(rows, film * dimensions, dimensions);
+        }
+        float[] query = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            query[i] = (float) random.nextDouble();
+        }
+        normalize(query, 0, dimensions);
+
+        float[] scalar = new float[films];
+        float[] simd = new float[films];
+        double scalarMillis = measure(new ScalarVectorScorer(), rows, query, scalar);
+        double simdMillis = measure(new SimdVectorScorer(), rows, query, simd);
+        float maxError = 0;
+        for (int i = 0; i < films; i++) {
+            maxError = Math.max(maxError, Math.abs(scalar[i] - simd[i]));
+        }
+        log.info("{} фильмов по {} признаков: скалярно {} мс, векторно {} мс ({}x, {} полос), " +
+                        "наибольшее расхождение {}", films, dimensions, String.format("%.2f", scalarMillis),
+                String.format("%.2f", simdMillis), String.format("%.1f", scalarMillis / simdMillis),
+                jdk.incubator.vector.FloatVector.SPECIES_PREFERRED.length(), String.format("%.1e", maxError));
+        assertTrue(maxError < 1e-5);
+    }
+
+    private static double measure(VectorScorer scorer, float[] rows, float[] query, float[] scores) {
+        for (int i = 0; i < WARMUP; i++) {
+            scorer.score(rows, query, scores);
+        }
+        double[] millis = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            scorer.score(rows, query, scores);
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[ROUNDS / 2];
+    }
+
+    private static void normalize(float[] vector, int offset, int length) {
+        double norm = 0;
+        for (int i = offset; i < offset + length; i++) {
+            norm += vector[i] * vector[i];
+        }
+        for (int i = offset; i < offset + length; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+    }
+}
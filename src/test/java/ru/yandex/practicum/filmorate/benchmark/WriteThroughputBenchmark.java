@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import ru.yandex.practicum.filmorate.dao.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Rating;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Запуск: mvn test -Dtest=WriteThroughputBenchmark -Dbenchmark=true
+// Сравнивает создание фильма с жанрами и режиссёрами в одной транзакции и в режиме autocommit.
+// WRITE_DELAY=0 заставляет H2 сбрасывать журнал на диск при каждом коммите
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:file:./target/benchmark/write-throughput;WRITE_DELAY=0")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class WriteThroughputBenchmark {
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 2000;
+    private static final int ROUNDS = 3;
+    private static final Logger log = LoggerFactory.getLogger(WriteThroughputBenchmark.class);
+
+    private final FilmDbStorage filmDbStorage;
+    private final DirectorDbStorage directorDbStorage;
+
+    @Test
+    public void compareAutocommitAndTransactionalCreate() {
+        Set<Director> directors = new LinkedHashSet<>();
+        directors.add(directorDbStorage.create(Director.builder().name("Director 1").build()));
+        directors.add(directorDbStorage.create(Director.builder().name("Director 2").build()));
+
+        // Исходный объект без транзакционного прокси: каждый запрос фиксируется отдельно
+        FilmDbStorage autocommit = AopTestUtils.getUltimateTargetObject(filmDbStorage);
+
+        run("autocommit", film -> autocommit.create(film), directors, WARMUP);
+        run("transactional", film -> filmDbStorage.create(film), directors, WARMUP);
+        double autocommitRate = 0;
+        double transactionalRate = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            autocommitRate += run("autocommit", film -> autocommit.create(film), directors, ITERATIONS);
+            transactionalRate += run("transactional", film -> filmDbStorage.create(film), directors, ITERATIONS);
+        }
+        log.info("Прирост пропускной способности: x{}", String.format("%.2f", transactionalRate / autocommitRate));
+    }
+
+    private double run(String name, Consumer<Film> create, Set<Director> directors, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            create.accept(film(i, directors));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double rate = iterations / seconds;
+        log.info("{}: {} фильмов за {} с, {} фильмов/с", name, iterations, String.format("%.2f", seconds),
+                Math.round(rate));
+        return rate;
+    }
+
+    private Film film(int i, Set<Director> directors) {
+        Rating mpa = new Rating();
+        mpa.setId(1);
+        List<Genre> genres = List.of(Genre.builder().id(1).build(), Genre.builder().id(2).build(),
+                Genre.builder().id(3).build());
+        return Film.builder()
+                .name("Film " + i)
+                .description("Benchmark film")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(mpa)
+                .genres(new ArrayList<>(genres))
+                .directors(directors)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+import ru.yandex.practicum.filmorate.dao.QueryStats;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Общие данные для тестов API: фильмы «Film i» и пользователи «user{i}Login»
+ * создаются через контроллеры, поэтому id совпадают с номерами.
+ */
+public final class ApiFixtures {
+
+    private ApiFixtures() {
+    }
+
+    public static String filmJson(int number) {
+        return "{\"name\": \"Film " + number + "\", \"description\": \"Film " + number + " description\", " +
+                "\"releaseDate\": \"2000-01-01\", \"duration\": 100, \"mpa\": {\"id\": 1}}";
+    }
+
+    public static String userJson(int number) {
+        return "{\"login\": \"user" + number + "Login\", \"name\": \"user" + number + "Name\", " +
+                "\"email\": \"user" + number + "@mail\", \"birthday\": \"1997-07-08\"}";
+    }
+
+    public static void createFilms(MockMvc mockMvc, int count) throws Exception {
+        for (int i = 1; i <= count; i++) {
+            mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(filmJson(i)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    public static void createUsers(MockMvc mockMvc, int count) throws Exception {
+        for (int i = 1; i <= count; i++) {
+            mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(userJson(i)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    // Нужен filmorate.sql.query-stats.enabled=true
+    public static ResultMatcher maxQueries(long max) {
+        return result -> {
+            QueryStats stats = (QueryStats) result.getRequest().getAttribute(QueryStatsInterceptor.STATS_ATTRIBUTE);
+            assertThat(stats.getStatements())
+                    .as("SQL-запросы в %s", result.getRequest().getRequestURI())
+                    .isLessThanOrEqualTo(max);
+        };
+    }
+
+    // Участки трассировки одного запроса по имени, для повторяющихся имён — первый завершённый.
+    // Нужен filmorate.tracing.enabled=true
+    public static Map<String, JsonNode> traceSpans(MockMvc mockMvc, ObjectMapper objectMapper,
+                                                   RequestBuilder request) throws Exception {
+        Logger tracing = (Logger) LoggerFactory.getLogger("filmorate.tracing");
+        ListAppender<ILoggingEvent> spans = new ListAppender<>();
+        spans.start();
+        tracing.addAppender(spans);
+        try {
+            mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+        } finally {
+            tracing.detachAppender(spans);
+        }
+
+        Map<String, JsonNode> byName = new HashMap<>();
+        for (ILoggingEvent event : spans.list) {
+            JsonNode span = objectMapper.readTree(event.getFormattedMessage());
+            byName.putIfAbsent(span.get("name").asText(), span);
+        }
+        return byName;
+    }
+}
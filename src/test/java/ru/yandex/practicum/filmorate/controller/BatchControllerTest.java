@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.controller.ApiFixtures.createFilms;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BatchControllerTest {
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @Test
+    public void testBatchRequests() throws Exception {
+        createFilms(mockMvc, 1);
+
+        mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"path\": \"/films/1?fields=name\"}, {\"path\": \"/films/popular?count=5\"}, " +
+                                "{\"path\": \"/films/99\"}, {\"path\": \"/unknown\"}, " +
+                                "{\"method\": \"DELETE\", \"path\": \"/films/1\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].body.name").value("Film 1"))
+                .andExpect(jsonPath("$[0].body.mpa").doesNotExist())
+                .andExpect(jsonPath("$[1].status").value(200))
+                .andExpect(jsonPath("$[1].body[0].id").value(1))
+                .andExpect(jsonPath("$[2].status").value(404))
+                .andExpect(jsonPath("$[2].body.error").exists())
+                .andExpect(jsonPath("$[3].status").value(404))
+                .andExpect(jsonPath("$[4].status").value(405));
+
+        // Подзапросы проходят через обычные контроллеры, их перехватчики и обработчики ошибок
+        mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"path\": \"/films/1/likes\"}, {\"path\": \"/films/1/similar\"}, " +
+                                "{\"path\": \"/directors\"}, {\"path\": \"/films/popular?count=abc\"}, " +
+                                "{\"path\": \"/films/search?query=film+1&by=title\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].body").isEmpty())
+                .andExpect(jsonPath("$[1].status").value(200))
+                .andExpect(jsonPath("$[2].status").value(200))
+                .andExpect(jsonPath("$[3].status").value(400))
+                .andExpect(jsonPath("$[3].body.error").exists())
+                .andExpect(jsonPath("$[4].body[0].name").value("Film 1"));
+        mockMvc.perform(get("/internal/metrics"))
+                .andExpect(content().string(containsString(
+                        "filmorate_http_request_seconds_count{handler=\"FilmController#getLikes\"} 1")));
+    }
+
+    @Test
+    public void testBatchItemHeaders() throws Exception {
+        createFilms(mockMvc, 1);
+        String etag = mockMvc.perform(get("/films/1")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // If-None-Match запроса /batch относится к самому пакету, а не к его подзапросам.
+        // Тела подзапросов встраиваются в JSON пакета, поэтому Accept подзапроса не учитывается
+        mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .content("[{\"path\": \"/films/1\", \"headers\": {\"If-None-Match\": " +
+                                objectMapper.writeValueAsString(etag) + "}}, {\"path\": \"/films/1\"}, " +
+                                "{\"path\": \"/films/1\", \"headers\": {\"Accept\": \"application/cbor\"}}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(304))
+                .andExpect(jsonPath("$[0].body").value(nullValue()))
+                .andExpect(jsonPath("$[0].etag").value(etag))
+                .andExpect(jsonPath("$[1].status").value(200))
+                .andExpect(jsonPath("$[1].etag").value(etag))
+                .andExpect(jsonPath("$[2].status").value(200))
+                .andExpect(jsonPath("$[2].body.name").value("Film 1"));
+
+        mockMvc.perform(post("/batch").contentType(MediaType.APPLICATION_JSON).accept("application/cbor")
+                        .content("[{\"path\": \"/films/1\"}]"))
+                .andExpect(status().isNotAcceptable());
+    }
+}
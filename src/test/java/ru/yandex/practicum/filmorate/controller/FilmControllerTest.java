@@ -1,40 +1,91 @@
 package ru.yandex.practicum.filmorate.controller;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.assertj.core.api.AssertionsForInterfaceTypes;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.dao.*;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmField;
+import ru.yandex.practicum.filmorate.model.FilmView;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Rating;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmSignatureIndex;
+import ru.yandex.practicum.filmorate.storage.ReferenceRegistry;
 import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.controller.ApiFixtures.maxQueries;
 
-@SpringBootTest
+@SpringBootTest(properties = "filmorate.sql.query-stats.enabled=true")
 @AutoConfigureTestDatabase
+@AutoConfigureMockMvc
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
-@RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class FilmControllerTest {
-    private final FilmDbStorage filmDbStorage;
-    private final UserDbStorage userDbStorage;
-    private final LikeStorage likesStorage;
+    // Внедряются в поля, чтобы после пересоздания контекста ссылаться на бины нового контекста:
+    // транзакционные прокси старого контекста после его закрытия не работают
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+    @Autowired
+    private UserDbStorage userDbStorage;
+    @Autowired
+    private DirectorDbStorage directorDbStorage;
+    @Autowired
+    private LikeStorage likesStorage;
+    @Autowired
+    private ReferenceRegistry registry;
+    @Autowired
+    private FilmSignatureIndex filmSignatureIndex;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private static final String FILM_1_JSON = "{\"name\": \"Film 1\", \"description\": \"Film 1 description\", " +
+            "\"releaseDate\": \"2000-01-01\", \"duration\": 100, \"mpa\": {\"id\": 1}}";
+    private static final String USER_1_JSON = "{\"login\": \"user1Login\", \"name\": \"user1Name\", " +
+            "\"email\": \"user1@mail\", \"birthday\": \"1997-07-08\"}";
 
     @Test
     public void testFindFilmById() {
         Film validFilm1 = getValidFilm1();
         filmDbStorage.create(validFilm1);
 
-        Optional<Film> filmOptional = Optional.ofNullable(filmDbStorage.getFilmById(1L));
+        Optional<FilmView> filmOptional = Optional.ofNullable(filmDbStorage.getFilmById(1L));
         assertThat(filmOptional)
                 .isPresent()
                 .hasValueSatisfying(film ->
@@ -63,12 +114,12 @@ public class FilmControllerTest {
         filmDbStorage.create(validFilm1);
         filmDbStorage.create(validFilm2);
 
-        Collection<Film> films = filmDbStorage.findAll();
-        for (Film film : films) {
-            Long id = film.getId();
+        Collection<FilmView> films = filmDbStorage.findAll();
+        for (FilmView film : films) {
+            Long id = film.id();
             AssertionsForInterfaceTypes
                     .assertThat(id)
-                    .isEqualTo(film.getId());
+                    .isEqualTo(film.id());
         }
     }
 
@@ -80,24 +131,103 @@ public class FilmControllerTest {
         filmDbStorage.create(validFilm1);
         filmDbStorage.update(validFilm2);
 
-        Film film = filmDbStorage.getFilmById(1L);
+        FilmView film = filmDbStorage.getFilmById(1L);
         assertThat(film)
                 .hasFieldOrPropertyWithValue("id", 1L)
                 .hasFieldOrPropertyWithValue("name", "Film 2");
     }
 
+    @Test
+    public void testUpdateFilmGenres() {
+        Film validFilm1 = getValidFilm1();
+        validFilm1.setGenres(List.of(Genre.builder().id(1).build(), Genre.builder().id(2).build()));
+        filmDbStorage.create(validFilm1);
+
+        Film validFilm2 = getValidFilm2();
+        validFilm2.setId(1L);
+        validFilm2.setGenres(List.of(Genre.builder().id(2).build(), Genre.builder().id(3).build()));
+        FilmView updated = filmDbStorage.update(validFilm2);
+
+        assertThat(updated.mpa()).hasFieldOrPropertyWithValue("name", "PG");
+        AssertionsForInterfaceTypes
+                .assertThat(updated.genreIds())
+                .containsExactly(2, 3);
+        AssertionsForInterfaceTypes
+                .assertThat(filmDbStorage.getFilmById(1L).genreIds())
+                .containsExactlyInAnyOrder(updated.genreIds());
+
+        // Неверный рейтинг откатывает уже выполненное в том же запросе обновление
+        validFilm2.setName("Renamed");
+        validFilm2.setMpa(new Rating(99, null));
+        assertThrows(ValidationException.class, () -> filmDbStorage.update(validFilm2));
+        assertEquals(updated.name(), filmDbStorage.getFilmById(1L).name());
+
+        validFilm2.setMpa(new Rating(1, null));
+        validFilm2.setId(99L);
+        assertThrows(NotFoundException.class, () -> filmDbStorage.update(validFilm2));
+    }
+
+    @Test
+    public void testSharedReferenceValues() throws Exception {
+        Director director = directorDbStorage.create(new Director(null, "Director 1"));
+        for (Film film : List.of(getValidFilm1(), getValidFilm2())) {
+            film.setMpa(new Rating(1, null));
+            film.setGenres(List.of(Genre.builder().id(1).build()));
+            film.setDirectors(Set.of(new Director(director.getId(), null)));
+            filmDbStorage.create(film);
+        }
+
+        List<FilmView> films = filmDbStorage.getFilmsByIds(List.of(1L, 2L), FilmField.ALL);
+        assertSame(films.get(0).mpa(), films.get(1).mpa());
+        assertArrayEquals(new int[]{1}, films.get(1).genreIds());
+        assertArrayEquals(new long[]{director.getId()}, films.get(1).directorIds());
+
+        Director shared = registry.director(director.getId());
+        directorDbStorage.update(new Director(director.getId(), "Director 2"));
+        assertEquals("Director 2", registry.director(director.getId()).getName());
+        assertNotSame(shared, registry.director(director.getId()));
+        mockMvc.perform(get("/films/2"))
+                .andExpect(jsonPath("$.directors[0].name").value("Director 2"))
+                .andExpect(jsonPath("$.genres[0].id").value(1));
+
+        // Общие экземпляры видны всем потокам и не меняются
+        assertThrows(UnsupportedOperationException.class, () -> films.get(0).mpa().setName("Changed"));
+        assertThrows(UnsupportedOperationException.class, () -> registry.genre(1).setName("Changed"));
+        assertThrows(UnsupportedOperationException.class, () -> shared.setName("Changed"));
+
+        // Режиссёр из откаченной транзакции в реестр не попадает
+        Director rolledBack = new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return directorDbStorage.create(new Director(null, "Director 3"));
+        });
+        assertNull(registry.director(rolledBack.getId()));
+    }
+
     @Test
     public void testAddFilm() {
         Film validFilm1 = getValidFilm1();
         filmDbStorage.create(validFilm1);
 
-        Film film = filmDbStorage.getFilmById(1L);
+        FilmView film = filmDbStorage.getFilmById(1L);
         assertThat(film)
                 .isNotNull()
                 .hasFieldOrPropertyWithValue("id", 1L)
                 .hasFieldOrPropertyWithValue("name", "Film 1");
     }
 
+    @Test
+    public void testFindFilmsByIds() {
+        Film validFilm1 = filmDbStorage.create(getValidFilm1());
+        Film validFilm2 = filmDbStorage.create(getValidFilm2());
+
+        List<FilmView> films = filmDbStorage.getFilmsByIds(List.of(validFilm2.getId(), 99L, validFilm1.getId()),
+                FilmField.ALL);
+        AssertionsForInterfaceTypes
+                .assertThat(films)
+                .extracting(FilmView::id)
+                .containsExactly(validFilm2.getId(), validFilm1.getId());
+    }
+
     @Test
     public void testAddLike() {
         Film validFilm1 = filmDbStorage.create(getValidFilm1());
@@ -125,6 +255,331 @@ public class FilmControllerTest {
                 .isEmpty();
     }
 
+    @Test
+    public void testConcurrentLikes() throws Exception {
+        Film validFilm1 = filmDbStorage.create(getValidFilm1());
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            userIds.add(userDbStorage.create(User.builder()
+                    .login("login" + i)
+                    .name("name" + i)
+                    .email("user" + i + "@mail")
+                    .birthday(LocalDate.parse("1997-07-08"))
+                    .build()).getId());
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Long userId : userIds) {
+                executor.submit(() -> likesStorage.addLike(validFilm1.getId(), userId));
+            }
+        }
+
+        AssertionsForInterfaceTypes
+                .assertThat(likesStorage.getLikes(validFilm1.getId()))
+                .containsExactlyInAnyOrderElementsOf(userIds);
+        mockMvc.perform(get("/users/" + userIds.getFirst() + "/feed"))
+                .andExpect(jsonPath("$[0].eventType").value("LIKE"))
+                .andExpect(jsonPath("$[0].entityId").value(validFilm1.getId()));
+        assertThrows(NotFoundException.class, () -> likesStorage.addLike(validFilm1.getId(), 999L));
+    }
+
+    @Test
+    public void testBatchLikes() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(FILM_1_JSON))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content(FILM_1_JSON.replace("Film 1", "Film 2")))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(USER_1_JSON))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/films/likes:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\": 1, \"userId\": 1, \"op\": \"ADD\"}, " +
+                                "{\"filmId\": 1, \"userId\": 1, \"op\": \"ADD\"}, " +
+                                "{\"filmId\": 2, \"userId\": 1, \"op\": \"ADD\"}, " +
+                                "{\"filmId\": 2, \"userId\": 1, \"op\": \"REMOVE\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].filmId").value(1))
+                .andExpect(jsonPath("$[0].op").value("ADD"))
+                .andExpect(jsonPath("$[1].filmId").value(2))
+                .andExpect(jsonPath("$[1].op").value("REMOVE"));
+        AssertionsForInterfaceTypes.assertThat(likesStorage.getLikes(1L)).containsExactly(1L);
+        AssertionsForInterfaceTypes.assertThat(likesStorage.getLikes(2L)).isEmpty();
+        mockMvc.perform(get("/users/1/feed"))
+                .andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(post("/films/likes:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\": 2, \"userId\": 1, \"op\": \"ADD\"}, " +
+                                "{\"filmId\": 99, \"userId\": 1, \"op\": \"ADD\"}]"))
+                .andExpect(status().isNotFound());
+        AssertionsForInterfaceTypes.assertThat(likesStorage.getLikes(2L)).isEmpty();
+    }
+
+    @Test
+    public void testBatchLikesKeepReplayOrder() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(FILM_1_JSON))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(USER_1_JSON))
+                .andExpect(status().isCreated());
+
+        // Итог очереди — лайк, хотя отмен в ней больше
+        mockMvc.perform(post("/films/likes:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\": 1, \"userId\": 1, \"op\": \"REMOVE\"}, " +
+                                "{\"filmId\": 1, \"userId\": 1, \"op\": \"REMOVE\"}, " +
+                                "{\"filmId\": 1, \"userId\": 1, \"op\": \"ADD\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].op").value("ADD"));
+        AssertionsForInterfaceTypes.assertThat(likesStorage.getLikes(1L)).containsExactly(1L);
+
+        // Лайк уже сохранён: лайк и отмена в очереди удаляют его, а не взаимно уничтожаются
+        mockMvc.perform(post("/films/likes:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\": 1, \"userId\": 1, \"op\": \"ADD\"}, " +
+                                "{\"filmId\": 1, \"userId\": 1, \"op\": \"REMOVE\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].op").value("REMOVE"));
+        AssertionsForInterfaceTypes.assertThat(likesStorage.getLikes(1L)).isEmpty();
+    }
+
+    @Test
+    public void testLikesCountAndLikesPages() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(FILM_1_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.likesCount").value(0))
+                .andExpect(jsonPath("$.userLikesIdSet").doesNotExist());
+        for (int i = 1; i <= 3; i++) {
+            mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                            .content(USER_1_JSON.replace("user1", "user" + i)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.friendsIdSet").doesNotExist());
+            likesStorage.addLike(1L, (long) i);
+        }
+
+        mockMvc.perform(get("/films/1"))
+                .andExpect(jsonPath("$.likesCount").value(3))
+                .andExpect(jsonPath("$.userLikesIdSet").doesNotExist());
+        mockMvc.perform(get("/films?fields=name"))
+                .andExpect(jsonPath("$[0].likesCount").doesNotExist());
+        mockMvc.perform(get("/films/1/likes?count=2"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[1, 2]"));
+        mockMvc.perform(get("/films/1/likes?after=2&count=2"))
+                .andExpect(content().json("[3]"));
+        mockMvc.perform(get("/films/1/likes?after=3"))
+                .andExpect(content().json("[]"));
+        mockMvc.perform(get("/films/99/likes"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/films/1/likes?count=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testBinaryFormats() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(FILM_1_JSON))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(USER_1_JSON))
+                .andExpect(status().isCreated());
+        likesStorage.addLike(1L, 1L);
+
+        Map<String, ObjectMapper> readers = Map.of(
+                "application/cbor", new ObjectMapper(new CBORFactory()),
+                "application/x-jackson-smile", new ObjectMapper(new SmileFactory()));
+        for (String path : List.of("/films", "/films/popular", "/users/1/feed")) {
+            JsonNode json = objectMapper.readTree(mockMvc.perform(get(path))
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andReturn().getResponse().getContentAsByteArray());
+            for (Map.Entry<String, ObjectMapper> reader : readers.entrySet()) {
+                byte[] body = mockMvc.perform(get(path).accept(reader.getKey()))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentTypeCompatibleWith(reader.getKey()))
+                        .andReturn().getResponse().getContentAsByteArray();
+                assertEquals(json, reader.getValue().readTree(body), path + " " + reader.getKey());
+            }
+        }
+        // Представления в разных форматах различаются и по ETag, и для кэшей по Vary
+        String jsonTag = mockMvc.perform(get("/films/1"))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/films/1").accept("application/cbor").header("If-None-Match", jsonTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(jsonTag)));
+        mockMvc.perform(get("/films/1").header("If-None-Match", jsonTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", containsString("Accept")));
+    }
+
+    @Test
+    public void testNotModifiedFilmUntilChanged() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(FILM_1_JSON))
+                .andExpect(status().isCreated());
+        String eTag = mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(eTag);
+
+        mockMvc.perform(get("/films/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content(FILM_1_JSON.replace("{", "{\"id\": 1, ").replace("Film 1", "Film 2")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/1").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testFilmTagChangesWithLikes() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(FILM_1_JSON))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content(FILM_1_JSON.replace("Film 1", "Film 2")))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(USER_1_JSON))
+                .andExpect(status().isCreated());
+        String eTag = mockMvc.perform(get("/films/1"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/films/2/like/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+        eTag = mockMvc.perform(get("/films/1").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likesCount").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(delete("/users/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/1").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likesCount").value(0));
+    }
+
+    @Test
+    public void testPopularFilmsTagChangesWithLikes() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(FILM_1_JSON))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(USER_1_JSON))
+                .andExpect(status().isCreated());
+        String eTag = mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/films/popular").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/popular").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testFilmFieldsProjection() throws Exception {
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content(FILM_1_JSON))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/films").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value("Film 1"))
+                .andExpect(jsonPath("$[0].mpa").doesNotExist())
+                .andExpect(jsonPath("$[0].genres").doesNotExist());
+        mockMvc.perform(get("/films/1"))
+                .andExpect(jsonPath("$.mpa.name").value("G"))
+                .andExpect(jsonPath("$.genres").isArray());
+        mockMvc.perform(get("/films").param("fields", "unknown"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists())
+                .andExpect(jsonPath("$.stackTrace").doesNotExist());
+    }
+
+    @Test
+    public void testQueryBudgets() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                            .content(FILM_1_JSON.replace("Film 1", "Film " + i)
+                                    .replace("}}", "}, \"genres\": [{\"id\": 1}, {\"id\": " + (i + 1) + "}]}")))
+                    .andExpect(status().isCreated());
+            mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                            .content(USER_1_JSON.replace("user1", "user" + i)))
+                    .andExpect(status().isCreated());
+        }
+        for (int i = 1; i <= 3; i++) {
+            mockMvc.perform(put("/films/" + i + "/like/1")).andExpect(status().isOk());
+            mockMvc.perform(put("/films/" + i + "/like/2")).andExpect(status().isOk());
+        }
+        mockMvc.perform(put("/films/1/like/3")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/films")).andExpect(status().isOk()).andExpect(maxQueries(3));
+        mockMvc.perform(get("/films/1")).andExpect(status().isOk()).andExpect(maxQueries(3));
+        mockMvc.perform(get("/films").param("ids", "1,2,3")).andExpect(status().isOk()).andExpect(maxQueries(3));
+        mockMvc.perform(get("/films/popular")).andExpect(status().isOk()).andExpect(maxQueries(3));
+        mockMvc.perform(get("/films/common").param("userId", "1").param("friendId", "2"))
+                .andExpect(status().isOk()).andExpect(maxQueries(3));
+        mockMvc.perform(get("/films/search").param("query", "film").param("by", "title"))
+                .andExpect(status().isOk()).andExpect(maxQueries(3));
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(maxQueries(4));
+        mockMvc.perform(put("/films/2/like/3")).andExpect(status().isOk()).andExpect(maxQueries(4));
+        // Правка описания без смены связей — один запрос
+        mockMvc.perform(put("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content(FILM_1_JSON.replace("{", "{\"id\": 1, ").replace("Film 1 description", "Edited")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Edited"))
+                .andExpect(jsonPath("$.likesCount").value(3))
+                .andExpect(maxQueries(1));
+    }
+
+    @Test
+    public void testSimilarFilms() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                            .content(FILM_1_JSON.replace("Film 1", "Film " + i)))
+                    .andExpect(status().isCreated());
+        }
+        for (int i = 1; i <= 3; i++) {
+            mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                            .content(USER_1_JSON.replace("user1", "user" + i)))
+                    .andExpect(status().isCreated());
+        }
+        mockMvc.perform(get("/films/1/similar")).andExpect(content().json("[]"));
+        mockMvc.perform(get("/films/9/similar")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/films/1/similar?count=0")).andExpect(status().isBadRequest());
+
+        // Совпадающие аудитории дают одинаковые подписи, и такие фильмы всегда попадают в кандидаты
+        for (long filmId : new long[]{1, 2}) {
+            likesStorage.addLike(filmId, 1L);
+            likesStorage.addLike(filmId, 2L);
+        }
+        likesStorage.addLike(3L, 3L);
+        mockMvc.perform(get("/films/1/similar"))
+                .andExpect(jsonPath("$[*].id").value(contains(2)))
+                .andExpect(jsonPath("$[0].likesCount").value(2));
+
+        mockMvc.perform(post("/films/likes:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\": 2, \"userId\": 2, \"op\": \"REMOVE\"}, " +
+                                "{\"filmId\": 3, \"userId\": 3, \"op\": \"REMOVE\"}, " +
+                                "{\"filmId\": 3, \"userId\": 1, \"op\": \"ADD\"}, " +
+                                "{\"filmId\": 3, \"userId\": 2, \"op\": \"ADD\"}]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/films/1/similar?count=1"))
+                .andExpect(jsonPath("$[*].id").value(contains(3)));
+
+        mockMvc.perform(delete("/films/3")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/1/similar"))
+                .andExpect(jsonPath("$[*].id").value(not(hasItem(3))));
+        mockMvc.perform(delete("/users/2")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/1/similar"))
+                .andExpect(jsonPath("$[*].id").value(contains(2)));
+        List<FilmSignatureIndex.Match> incremental = filmSignatureIndex.similar(1L, 10);
+        filmSignatureIndex.rebuild();
+        assertEquals(incremental, filmSignatureIndex.similar(1L, 10));
+    }
+
     private Film getValidFilm1() {
         Film film = Film.builder()
                 .name("Film 1")
@@ -159,4 +614,4 @@ public class FilmControllerTest {
                 .birthday(LocalDate.parse("1997-07-08"))
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.controller.ApiFixtures.createFilms;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class MetricsControllerTest {
+    private final MockMvc mockMvc;
+
+    @Test
+    public void testMetricsEndpoint() throws Exception {
+        createFilms(mockMvc, 1);
+        String eTag = mockMvc.perform(get("/films/1"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/films/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/internal/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "filmorate_http_request_seconds_count{handler=\"FilmController#getFilmById\"} 2")))
+                .andExpect(content().string(containsString(
+                        "filmorate_http_request_seconds{handler=\"FilmController#create\",quantile=\"0.99\"}")))
+                .andExpect(content().string(containsString(
+                        "filmorate_storage_call_seconds_count{method=\"FilmDbStorage.getFilmById\"} 1")))
+                .andExpect(content().string(containsString("filmorate_cache_hits_total{cache=\"etag\"} 1")))
+                .andExpect(content().string(containsString("jvm_allocated_bytes_total ")));
+    }
+}
@@ -65,6 +65,16 @@ public class UserControllerTest {
                 .contains(validUser1, validUser2);
     }
 
+    @Test
+    public void testFindUsersByIds() {
+        User validUser1 = userDbStorage.create(getValidUser1());
+        User validUser2 = userDbStorage.create(getValidUser2());
+
+        List<User> users = userDbStorage.getUsersByIds(List.of(validUser2.getId(), 99L, validUser1.getId()));
+        assertThat(users)
+                .containsExactly(validUser2, validUser1);
+    }
+
     @Test
     public void testUpdateUser() {
         User validUser1 = getValidUser1();
@@ -0,0 +1,194 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.service.RecommendationBatch;
+import ru.yandex.practicum.filmorate.storage.CoLikeIndex;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.controller.ApiFixtures.*;
+
+@SpringBootTest(properties = "filmorate.sql.query-stats.enabled=true")
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class UserRecommendationsTest {
+    private final LikeStorage likesStorage;
+    private final CoLikeIndex coLikeIndex;
+    private final RecommendationBatch recommendationBatch;
+    private final JdbcTemplate jdbcTemplate;
+    private final MockMvc mockMvc;
+
+    @Test
+    public void testItemBasedRecommendations() throws Exception {
+        createFilms(mockMvc, 4);
+        createUsers(mockMvc, 3);
+        mockMvc.perform(get("/users/3/recommendations")).andExpect(content().json("[]"));
+        likeFilms();
+
+        // Вес 1-2 равен 2/√6, вес 1-3 равен 1/√3
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(2, 3)));
+
+        mockMvc.perform(post("/films/likes:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\": 2, \"userId\": 2, \"op\": \"REMOVE\"}, " +
+                                "{\"filmId\": 3, \"userId\": 2, \"op\": \"ADD\"}]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(3, 2)));
+
+        mockMvc.perform(delete("/films/3")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(2)));
+        List<Long> incremental = coLikeIndex.recommend(3L, 10);
+        coLikeIndex.rebuild();
+        assertEquals(incremental, coLikeIndex.recommend(3L, 10));
+    }
+
+    @Test
+    public void testPrecomputedRecommendations() throws Exception {
+        createFilms(mockMvc, 4);
+        createUsers(mockMvc, 3);
+        likeFilms();
+
+        RecommendationBatch.Report report = recommendationBatch.run();
+        assertEquals(3, report.users());
+        assertEquals(List.of(2L, 3L), jdbcTemplate.queryForList(
+                "SELECT film_id FROM user_recommendations WHERE user_id = 3 ORDER BY ordinal", Long.class));
+
+        // Лайки третьего пользователя не менялись, поэтому ответ берётся из пересчёта, хотя веса уже другие
+        mockMvc.perform(post("/films/likes:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\": 2, \"userId\": 2, \"op\": \"REMOVE\"}, " +
+                                "{\"filmId\": 3, \"userId\": 2, \"op\": \"ADD\"}]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(2, 3)));
+
+        likesStorage.addLike(4L, 3L);
+        assertFalse(recommendationBatch.isPrecomputed(3L));
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(3, 2)));
+
+        recommendationBatch.run();
+        assertTrue(recommendationBatch.isPrecomputed(3L));
+        mockMvc.perform(delete("/films/3")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(2)));
+    }
+
+    @Test
+    public void testContentRecommendations() throws Exception {
+        // Рейтинг, жанр и год выхода
+        String[][] films = {{"1", "1", "2000"}, {"3", "2", "1960"}, {"1", "1", "2005"}, {"1", "2", "2000"}};
+        for (String[] film : films) {
+            mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\": \"Film\", \"description\": \"Film\", " +
+                                    "\"releaseDate\": \"" + film[2] + "-01-01\", \"duration\": 100, " +
+                                    "\"mpa\": {\"id\": " + film[0] + "}, " +
+                                    "\"genres\": [{\"id\": " + film[1] + "}]}"))
+                    .andExpect(status().isCreated());
+        }
+        createUsers(mockMvc, 1);
+        mockMvc.perform(get("/users/1/recommendations?strategy=content")).andExpect(content().json("[]"));
+        likesStorage.addLike(1L, 1L);
+
+        // Фильм никто больше не лайкал: совместных лайков нет, но есть фильмы с теми же признаками
+        mockMvc.perform(get("/users/1/recommendations")).andExpect(content().json("[]"));
+        mockMvc.perform(get("/users/1/recommendations?strategy=content"))
+                .andExpect(jsonPath("$[*].id").value(contains(3, 4, 2)));
+        mockMvc.perform(get("/users/1/recommendations?strategy=popular")).andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/films/3")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/1/recommendations?strategy=content"))
+                .andExpect(jsonPath("$[*].id").value(contains(4, 2)));
+
+        // Перекодируются только изменённые строки: фильм 2 совпал с лайкнутым, новый фильм 5 тоже
+        mockMvc.perform(put("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": 2, \"name\": \"Film\", \"description\": \"Film\", " +
+                                "\"releaseDate\": \"2000-01-01\", \"duration\": 100, \"mpa\": {\"id\": 1}, " +
+                                "\"genres\": [{\"id\": 1}]}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Film\", \"description\": \"Film\", " +
+                                "\"releaseDate\": \"2001-01-01\", \"duration\": 100, \"mpa\": {\"id\": 1}, " +
+                                "\"genres\": [{\"id\": 1}]}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/users/1/recommendations?strategy=content"))
+                .andExpect(jsonPath("$[*].id").value(contains(2, 5, 4)));
+    }
+
+    @Test
+    public void testRecommendationCache() throws Exception {
+        createFilms(mockMvc, 5);
+        createUsers(mockMvc, 4);
+        likeFilms();
+
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(2, 3)));
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(2, 3)))
+                .andExpect(maxQueries(0));
+
+        // Фильм 5 не связан с лайками третьего пользователя, и его ответ остаётся в кэше
+        likesStorage.addLike(5L, 4L);
+        mockMvc.perform(get("/users/3/recommendations")).andExpect(maxQueries(0));
+        // Лайк фильма из ответа меняет его likesCount
+        likesStorage.addLike(2L, 4L);
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[0].likesCount").value(3));
+
+        mockMvc.perform(post("/films/likes:batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"filmId\": 2, \"userId\": 2, \"op\": \"REMOVE\"}, " +
+                                "{\"filmId\": 3, \"userId\": 2, \"op\": \"ADD\"}]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(3, 2)));
+
+        mockMvc.perform(put("/films").contentType(MediaType.APPLICATION_JSON)
+                        .content(filmJson(2).replace("{", "{\"id\": 2, ").replace("\"Film 2\"", "\"Renamed\"")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[1].name").value("Renamed"));
+
+        mockMvc.perform(delete("/films/3")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/3/recommendations"))
+                .andExpect(jsonPath("$[*].id").value(contains(2)));
+
+        mockMvc.perform(get("/internal/metrics"))
+                .andExpect(content().string(containsString(
+                        "filmorate_cache_hits_total{cache=\"recommendations\"} 2")))
+                .andExpect(content().string(containsString(
+                        "filmorate_cache_misses_total{cache=\"recommendations\"} 5")));
+    }
+
+    // Пользователь 1 лайкнул фильмы 1–3, пользователь 2 — фильмы 1 и 2, пользователь 3 — фильм 1
+    private void likeFilms() {
+        for (long filmId : new long[]{1, 2, 3}) {
+            likesStorage.addLike(filmId, 1L);
+        }
+        likesStorage.addLike(1L, 2L);
+        likesStorage.addLike(2L, 2L);
+        likesStorage.addLike(1L, 3L);
+    }
+}
@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.dao;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.yandex.practicum.filmorate.model.EventOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.LikeIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LikeBatchWriterTest {
+
+    @Test
+    public void testErrorCompletesEveryWaitingWrite() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        LikeBatchWriter writer = new LikeBatchWriter(null, null, blockingManager(release, true), List.of());
+
+        // Первый поток становится лидером и ждёт в транзакции, остальные встают в очередь
+        List<Thread> threads = new ArrayList<>();
+        List<CompletableFuture<Throwable>> results = new ArrayList<>();
+        for (long userId = 1; userId <= 3; userId++) {
+            CompletableFuture<Throwable> result = new CompletableFuture<>();
+            LikeOperation operation = new LikeOperation(1L, userId, EventOperation.ADD);
+            Thread thread = new Thread(() -> {
+                try {
+                    writer.write(operation);
+                    result.complete(null);
+                } catch (Throwable e) {
+                    result.complete(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+            results.add(result);
+            awaitWaiting(thread);
+        }
+        release.countDown();
+
+        for (CompletableFuture<Throwable> result : results) {
+            assertInstanceOf(StackOverflowError.class, result.get(5, TimeUnit.SECONDS));
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+            assertTrue(!thread.isAlive());
+        }
+    }
+
+    @Test
+    public void testIndexesReceiveLastOperationOfEachPair() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> queryForList(String sql, Class<T> elementType) {
+                return (List<T>) List.of(1L);
+            }
+
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                return new int[batchArgs.size()];
+            }
+        };
+        List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        LikeIndex index = new LikeIndex() {
+            @Override
+            public void addLike(long filmId, long userId) {
+                calls.add("ADD " + filmId + " " + userId);
+            }
+
+            @Override
+            public void removeLike(long filmId, long userId) {
+                calls.add("REMOVE " + filmId + " " + userId);
+            }
+
+            @Override
+            public void removeFilm(long filmId) {
+            }
+
+            @Override
+            public void removeUser(long userId) {
+            }
+        };
+        LikeBatchWriter writer = new LikeBatchWriter(jdbcTemplate, new EventRepository(jdbcTemplate),
+                blockingManager(release, false), List.of(index));
+
+        // Пока лидер пишет лайк, лайк и отмена той же пары попадают в следующий пакет
+        List<Thread> threads = new ArrayList<>();
+        for (EventOperation op : List.of(EventOperation.ADD, EventOperation.ADD, EventOperation.REMOVE)) {
+            Thread thread = new Thread(() -> writer.write(new LikeOperation(1L, 1L, op)));
+            thread.start();
+            threads.add(thread);
+            awaitWaiting(thread);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        assertEquals(List.of("ADD 1 1", "REMOVE 1 1"), calls);
+    }
+
+    @Test
+    public void testInterruptedWriteKeepsWaiting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        LikeBatchWriter writer = new LikeBatchWriter(null, null, blockingManager(release, true), List.of());
+        Thread leader = new Thread(() -> {
+            try {
+                writer.write(new LikeOperation(1L, 1L, EventOperation.ADD));
+            } catch (StackOverflowError ignored) {
+                // Ошибку записи проверяет ожидающий поток
+            }
+        });
+        leader.start();
+        awaitWaiting(leader);
+
+        CompletableFuture<Boolean> interrupted = new CompletableFuture<>();
+        Thread waiting = new Thread(() -> {
+            try {
+                writer.write(new LikeOperation(1L, 2L, EventOperation.ADD));
+            } catch (StackOverflowError e) {
+                interrupted.complete(Thread.currentThread().isInterrupted());
+            }
+        });
+        waiting.start();
+        awaitWaiting(waiting);
+        // Прерванный поток снова засыпает, а не крутится в цикле ожидания
+        waiting.interrupt();
+        Thread.sleep(50);
+        awaitWaiting(waiting);
+        release.countDown();
+
+        assertTrue(interrupted.get(5, TimeUnit.SECONDS));
+        leader.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    // Первая транзакция ждёт release; с failing каждая транзакция завершается StackOverflowError
+    private static PlatformTransactionManager blockingManager(CountDownLatch release, boolean failing) {
+        AtomicBoolean first = new AtomicBoolean(true);
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                if (first.getAndSet(false)) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (failing) {
+                    throw new StackOverflowError();
+                }
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING) {
+            if (System.nanoTime() > deadline) {
+                fail("Поток записи не дошёл до ожидания");
+            }
+            Thread.sleep(1);
+        }
+    }
+}
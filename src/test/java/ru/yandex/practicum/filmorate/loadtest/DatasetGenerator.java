@@ -0,0 +1,407 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Генератор синтетических данных для нагрузочных тестов и бенчмарков. Заполняет таблицы
+ * schema.sql, кроме справочников ratings и genres из data.sql. Прежние данные этих таблиц удаляются.
+ *
+ * <p>Распределения неравномерны: популярность фильмов и число лайков, друзей и оценок
+ * у пользователя подчиняются степенному закону, друзья в основном выбираются внутри
+ * кластеров соседних id. Строки пишутся в CSV и загружаются через CSVREAD без ограничений
+ * UNIQUE и внешних ключей, которые восстанавливаются после загрузки; лайки предварительно
+ * сортируются по первичному ключу.
+ */
+public class DatasetGenerator {
+    private static final int RATINGS = 5;
+    private static final int GENRES = 6;
+    private static final int FRIEND_CLUSTER_SIZE = 100;
+    private static final int CHUNK_ROWS = 5_000;
+    // Чем больше показатель, тем сильнее лайки сосредоточены на фильмах с малыми id
+    private static final double FILM_POPULARITY_EXPONENT = 3.0;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private final Random random;
+    private long eventTimestamp = System.currentTimeMillis() - 365L * 24 * 60 * 60 * 1000;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, Path directory, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = directory;
+        this.random = new Random(seed);
+    }
+
+    public record Scale(int users, int films, int directors, double likesPerUser, double friendsPerUser,
+                        double reviewsPerUser, double gradesPerReview) {
+
+        // Значения по умолчанию переопределяются системными свойствами prefix.users, prefix.films и т. д.
+        public static Scale fromSystemProperties(String prefix, Scale defaults) {
+            return new Scale(
+                    Integer.getInteger(prefix + ".users", defaults.users()),
+                    Integer.getInteger(prefix + ".films", defaults.films()),
+                    Integer.getInteger(prefix + ".directors", defaults.directors()),
+                    doubleProperty(prefix + ".likesPerUser", defaults.likesPerUser()),
+                    doubleProperty(prefix + ".friendsPerUser", defaults.friendsPerUser()),
+                    doubleProperty(prefix + ".reviewsPerUser", defaults.reviewsPerUser()),
+                    doubleProperty(prefix + ".gradesPerReview", defaults.gradesPerReview()));
+        }
+
+        private static double doubleProperty(String name, double defaultValue) {
+            String value = System.getProperty(name);
+            return value == null ? defaultValue : Double.parseDouble(value);
+        }
+    }
+
+    /**
+     * Создаёт набор данных и возвращает число загруженных строк по таблицам.
+     */
+    public Map<String, Long> generate(Scale scale) {
+        try {
+            Files.createDirectories(directory);
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            List<String> constraints = dropConstraints();
+            try {
+                clear();
+                load("directors", "director_id, name", writeDirectors(scale));
+                load("films", "film_id, name, description, release_date, duration, rating_id", writeFilms(scale));
+                load("films_Genres", "film_id, genre_id", writeFilmGenres(scale));
+                load("film_director", "film_id, director_id", writeFilmDirectors(scale));
+                load("users", "user_id, email, login, name, birthday", writeUsers(scale));
+                load("films_Likes", "film_id, user_id", writeLikes(scale));
+                CsvFile grades = new CsvFile("grades");
+                CsvFile events = new CsvFile("events");
+                try (grades; events) {
+                    load("friendships", "requester_id, addressee_id", writeFriendships(scale, events));
+                    load("reviews", "id, content, type, user_id, film_id, usefulness_rating",
+                            writeReviews(scale, grades, events));
+                }
+                load("reviews_grade", "review_id, user_id, grade", grades.chunks());
+                load("events", "user_id, entity_id, operation, event_type, timestamp", events.chunks());
+                restartIdentity(scale);
+            } finally {
+                constraints.forEach(jdbcTemplate::execute);
+                jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String table : new String[]{"users", "films", "films_Likes", "friendships", "reviews",
+                "reviews_grade", "events"}) {
+            counts.put(table, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class));
+        }
+        return counts;
+    }
+
+    /**
+     * Удаляет ограничения UNIQUE и внешние ключи заполняемых таблиц и возвращает команды для их
+     * восстановления. Построчная вставка в их индексы в случайном порядке занимает большую часть
+     * времени загрузки, а созданный заново индекс H2 строит сортировкой всех строк сразу.
+     * Внешние ключи восстанавливаются без проверки: генератор ссылается только на существующие строки.
+     */
+    private List<String> dropConstraints() {
+        List<String> restore = new ArrayList<>();
+        List<String> foreignKeys = new ArrayList<>();
+        jdbcTemplate.query("SELECT tc.TABLE_NAME, tc.CONSTRAINT_NAME, tc.CONSTRAINT_TYPE, " +
+                "(SELECT LISTAGG(k.COLUMN_NAME, ', ') WITHIN GROUP (ORDER BY k.ORDINAL_POSITION) " +
+                "FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE AS k WHERE k.CONSTRAINT_NAME = tc.CONSTRAINT_NAME) AS cols, " +
+                "(SELECT LISTAGG(r.TABLE_NAME || '(' || r.COLUMN_NAME || ')') " +
+                "FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE AS r WHERE r.CONSTRAINT_NAME = rc.UNIQUE_CONSTRAINT_NAME) " +
+                "AS refs, rc.DELETE_RULE " +
+                "FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS AS tc " +
+                "LEFT JOIN INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS AS rc " +
+                "ON rc.CONSTRAINT_NAME = tc.CONSTRAINT_NAME " +
+                "WHERE tc.TABLE_SCHEMA = SCHEMA() AND tc.CONSTRAINT_TYPE IN ('UNIQUE', 'FOREIGN KEY') " +
+                "AND tc.TABLE_NAME IN ('USERS', 'FILMS_GENRES', 'FILM_DIRECTOR', 'FILMS_LIKES', 'FRIENDSHIPS', " +
+                "'REVIEWS', 'REVIEWS_GRADE', 'EVENTS')", rs -> {
+            String table = rs.getString("TABLE_NAME");
+            String name = rs.getString("CONSTRAINT_NAME");
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT " + name);
+            if (rs.getString("CONSTRAINT_TYPE").equals("UNIQUE")) {
+                restore.add("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " UNIQUE (" +
+                        rs.getString("cols") + ")");
+            } else {
+                foreignKeys.add("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " FOREIGN KEY (" +
+                        rs.getString("cols") + ") REFERENCES " + rs.getString("refs") + " ON DELETE " +
+                        rs.getString("DELETE_RULE") + " NOCHECK");
+            }
+        });
+        restore.addAll(foreignKeys);
+        return restore;
+    }
+
+    private void clear() {
+        for (String table : new String[]{"user_recommendations", "events", "reviews_grade", "reviews",
+                "friendships", "films_Likes", "film_director", "films_Genres", "films", "directors", "users"}) {
+            jdbcTemplate.execute("TRUNCATE TABLE " + table);
+        }
+    }
+
+    // Каждый файл загружается отдельной транзакцией: на крупных транзакциях H2 заметно замедляет вставку
+    private void load(String table, String columns, List<Path> files) {
+        int count = columns.split(",").length;
+        StringBuilder header = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            header.append(i > 1 ? "," : "").append('c').append(i);
+        }
+        for (Path file : files) {
+            jdbcTemplate.update("INSERT INTO " + table + " (" + columns + ") SELECT * FROM CSVREAD('" +
+                    file.toAbsolutePath().toString().replace("'", "''") + "', '" + header + "', 'charset=UTF-8')");
+        }
+    }
+
+    private void restartIdentity(Scale scale) {
+        long reviews = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM reviews", Long.class);
+        jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN user_id RESTART WITH " + (scale.users() + 1));
+        jdbcTemplate.execute("ALTER TABLE films ALTER COLUMN film_id RESTART WITH " + (scale.films() + 1));
+        jdbcTemplate.execute("ALTER TABLE directors ALTER COLUMN director_id RESTART WITH " +
+                (scale.directors() + 1));
+        jdbcTemplate.execute("ALTER TABLE reviews ALTER COLUMN id RESTART WITH " + (reviews + 1));
+    }
+
+    private List<Path> writeDirectors(Scale scale) throws IOException {
+        CsvFile out = new CsvFile("directors");
+        try (out) {
+            for (int i = 1; i <= scale.directors(); i++) {
+                out.line(i, "Director " + i);
+            }
+        }
+        return out.chunks();
+    }
+
+    private List<Path> writeFilms(Scale scale) throws IOException {
+        CsvFile out = new CsvFile("films");
+        try (out) {
+            for (int i = 1; i <= scale.films(); i++) {
+                out.line(i, "Film " + i, "Description of film " + i,
+                        (1950 + random.nextInt(75)) + "-0" + (random.nextInt(9) + 1) + "-1" + random.nextInt(10),
+                        60 + random.nextInt(120), random.nextInt(RATINGS) + 1);
+            }
+        }
+        return out.chunks();
+    }
+
+    private List<Path> writeFilmGenres(Scale scale) throws IOException {
+        CsvFile out = new CsvFile("films_genres");
+        try (out) {
+            for (int i = 1; i <= scale.films(); i++) {
+                int first = random.nextInt(GENRES) + 1;
+                out.line(i, first);
+                if (random.nextInt(3) == 0) {
+                    out.line(i, first % GENRES + 1);
+                }
+            }
+        }
+        return out.chunks();
+    }
+
+    private List<Path> writeFilmDirectors(Scale scale) throws IOException {
+        CsvFile out = new CsvFile("film_director");
+        try (out) {
+            for (int i = 1; i <= scale.films() && scale.directors() > 0; i++) {
+                if (random.nextInt(5) != 0) {
+                    out.line(i, skewed(scale.directors(), 2.0));
+                }
+            }
+        }
+        return out.chunks();
+    }
+
+    private List<Path> writeUsers(Scale scale) throws IOException {
+        CsvFile out = new CsvFile("users");
+        try (out) {
+            for (int i = 1; i <= scale.users(); i++) {
+                out.line(i, "user" + i + "@mail.ru", "user" + i, "User " + i,
+                        (1950 + random.nextInt(55)) + "-0" + (random.nextInt(9) + 1) + "-1" + random.nextInt(10));
+            }
+        }
+        return out.chunks();
+    }
+
+    // Пары упаковываются в long (film_id << 32 | user_id) и сортируются, чтобы вставка шла по порядку индекса
+    private List<Path> writeLikes(Scale scale) throws IOException {
+        long[] likes = new long[(int) Math.min(Integer.MAX_VALUE - 8, scale.users() * scale.likesPerUser() * 1.2)];
+        int size = 0;
+        int maxPerUser = Math.max(1, scale.films() / 10);
+        for (int user = 1; user <= scale.users(); user++) {
+            int count = Math.min(maxPerUser, powerLaw(scale.likesPerUser()));
+            int[] films = new int[count];
+            for (int i = 0; i < count; i++) {
+                films[i] = skewed(scale.films(), FILM_POPULARITY_EXPONENT);
+            }
+            Arrays.sort(films);
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && films[i] == films[i - 1]) {
+                    continue;
+                }
+                if (size == likes.length) {
+                    likes = Arrays.copyOf(likes, likes.length + likes.length / 2);
+                }
+                likes[size++] = (long) films[i] << 32 | user;
+            }
+        }
+        Arrays.parallelSort(likes, 0, size);
+
+        CsvFile out = new CsvFile("likes");
+        try (out) {
+            for (int i = 0; i < size; i++) {
+                out.line(likes[i] >>> 32, likes[i] & 0xFFFFFFFFL);
+            }
+        }
+        return out.chunks();
+    }
+
+    private List<Path> writeFriendships(Scale scale, CsvFile events) throws IOException {
+        CsvFile out = new CsvFile("friendships");
+        try (out) {
+            for (int user = 1; user <= scale.users(); user++) {
+                int clusterStart = (user - 1) / FRIEND_CLUSTER_SIZE * FRIEND_CLUSTER_SIZE + 1;
+                int clusterSize = Math.min(FRIEND_CLUSTER_SIZE, scale.users() - clusterStart + 1);
+                int count = Math.min(clusterSize - 1, powerLaw(scale.friendsPerUser()));
+                int[] friends = new int[count];
+                for (int i = 0; i < count; i++) {
+                    friends[i] = random.nextInt(5) == 0
+                            ? random.nextInt(scale.users()) + 1
+                            : clusterStart + random.nextInt(clusterSize);
+                }
+                Arrays.sort(friends);
+                for (int i = 0; i < count; i++) {
+                    if (friends[i] != user && (i == 0 || friends[i] != friends[i - 1])) {
+                        out.line(user, friends[i]);
+                        event(events, user, friends[i], "FRIEND");
+                    }
+                }
+            }
+        }
+        return out.chunks();
+    }
+
+    // Заодно пишет оценки отзывов: полезность отзыва равна разности лайков и дизлайков
+    private List<Path> writeReviews(Scale scale, CsvFile grades, CsvFile events) throws IOException {
+        CsvFile reviews = new CsvFile("reviews");
+        long id = 0;
+        try (reviews) {
+            for (int user = 1; user <= scale.users(); user++) {
+                int count = random.nextDouble() < scale.reviewsPerUser() % 1 ? (int) scale.reviewsPerUser() + 1
+                        : (int) scale.reviewsPerUser();
+                int[] films = new int[Math.min(count, scale.films())];
+                for (int i = 0; i < films.length; i++) {
+                    films[i] = skewed(scale.films(), FILM_POPULARITY_EXPONENT);
+                }
+                Arrays.sort(films);
+                for (int i = 0; i < films.length; i++) {
+                    if (i > 0 && films[i] == films[i - 1]) {
+                        continue;
+                    }
+                    id++;
+                    int[] graders = new int[Math.min(scale.users(), powerLaw(scale.gradesPerReview()))];
+                    for (int j = 0; j < graders.length; j++) {
+                        graders[j] = random.nextInt(scale.users()) + 1;
+                    }
+                    Arrays.sort(graders);
+                    long usefulness = 0;
+                    for (int j = 0; j < graders.length; j++) {
+                        if (graders[j] == user || (j > 0 && graders[j] == graders[j - 1])) {
+                            continue;
+                        }
+                        boolean like = random.nextInt(10) < 7;
+                        usefulness += like ? 1 : -1;
+                        grades.line(id, graders[j], like ? "Like" : "Dislike");
+                    }
+                    reviews.line(id, "Review " + id + " of film " + films[i],
+                            random.nextBoolean() ? "Positive" : "Negative", user, films[i], usefulness);
+                    event(events, user, id, "REVIEW");
+                }
+            }
+        }
+        return reviews.chunks();
+    }
+
+    // События ленты пишутся для дружбы и отзывов; лайки в ленту не попадают, чтобы не удваивать самую большую таблицу
+    private void event(CsvFile events, long userId, long entityId, String type) throws IOException {
+        events.line(userId, entityId, "ADD", type, eventTimestamp += 1000);
+    }
+
+    // Степенное распределение Парето с показателем 2 и заданным средним, не меньше 1
+    private int powerLaw(double mean) {
+        return Math.max(1, (int) (mean / 2 / Math.sqrt(1 - random.nextDouble())));
+    }
+
+    private int skewed(int size, double exponent) {
+        return (int) (size * Math.pow(random.nextDouble(), exponent)) + 1;
+    }
+
+    /**
+     * CSV-файл, разбитый на части по {@link #CHUNK_ROWS} строк.
+     */
+    private final class CsvFile implements Closeable {
+        private final String name;
+        private final List<Path> chunks = new ArrayList<>();
+        private BufferedWriter out;
+        private int rows;
+
+        CsvFile(String name) {
+            this.name = name;
+        }
+
+        void line(long first, long second) throws IOException {
+            BufferedWriter writer = nextLine();
+            writer.write(Long.toString(first));
+            writer.write(',');
+            writer.write(Long.toString(second));
+            writer.write('\n');
+        }
+
+        void line(Object... values) throws IOException {
+            BufferedWriter writer = nextLine();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(String.valueOf(values[i]));
+            }
+            writer.write('\n');
+        }
+
+        List<Path> chunks() {
+            return chunks;
+        }
+
+        private BufferedWriter nextLine() throws IOException {
+            if (out == null || rows == CHUNK_ROWS) {
+                close();
+                Path file = directory.resolve(name + "-" + chunks.size() + ".csv");
+                chunks.add(file);
+                out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+                        1 << 16);
+                rows = 0;
+            }
+            rows++;
+            return out;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import ru.yandex.practicum.filmorate.metrics.LatencyHistogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Генератор нагрузки с открытой моделью: запросы поступают пуассоновским потоком с заданной
+ * интенсивностью независимо от того, успел ли сервер ответить на предыдущие. Каждый запрос
+ * выполняется в своём виртуальном потоке, задержка отсчитывается от запланированного момента
+ * отправки, поэтому отставание самого генератора тоже попадает в результат.
+ */
+class LoadGenerator {
+    private final HttpClient client;
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+    private final Random random;
+
+    LoadGenerator(HttpClient client, List<Endpoint> endpoints, long seed) {
+        this.client = client;
+        this.endpoints = endpoints;
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+        this.random = new Random(seed);
+    }
+
+    // Веса задаются строкой вида popular:40,film:20; эндпоинты без веса не вызываются
+    static List<Endpoint> withWeights(List<Endpoint> endpoints, String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        List<Endpoint> weighted = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            int weight = weights.getOrDefault(endpoint.name(), 0);
+            if (weight > 0) {
+                weighted.add(new Endpoint(endpoint.name(), weight, endpoint.request()));
+            }
+        }
+        return weighted;
+    }
+
+    Map<String, EndpointResult> run(double ratePerSecond, long durationSeconds) throws InterruptedException {
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        endpoints.forEach(endpoint -> recorders.put(endpoint.name(), new Recorder()));
+
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        double next = start;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (next < end) {
+                long scheduled = (long) next;
+                LockSupport.parkNanos(scheduled - System.nanoTime());
+
+                Endpoint endpoint = pick();
+                HttpRequest request = endpoint.request().apply(random);
+                Recorder recorder = recorders.get(endpoint.name());
+                executor.submit(() -> send(request, recorder, scheduled));
+
+                next += -Math.log(1 - random.nextDouble()) * meanIntervalNanos;
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, EndpointResult> results = new LinkedHashMap<>();
+        recorders.forEach((name, recorder) -> results.put(name, recorder.result(elapsedSeconds)));
+        return results;
+    }
+
+    private void send(HttpRequest request, Recorder recorder, long scheduled) {
+        boolean failed;
+        try {
+            failed = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+        } catch (Exception e) {
+            failed = true;
+        }
+        recorder.record(System.nanoTime() - scheduled, failed);
+    }
+
+    private Endpoint pick() {
+        int value = random.nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            value -= endpoint.weight();
+            if (value < 0) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    record Endpoint(String name, int weight, Function<Random, HttpRequest> request) {
+    }
+
+    record EndpointResult(long requests, long errors, double errorRate, double throughput,
+                          Map<String, Double> latencyMillis) {
+    }
+
+    private static class Recorder {
+        private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+        private static final String[] NAMES = {"p50", "p90", "p99", "p999"};
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean failed) {
+            latency.record(nanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        EndpointResult result(double elapsedSeconds) {
+            long requests = latency.getCount();
+            long[] values = latency.getValuesAtQuantiles(QUANTILES);
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (int i = 0; i < QUANTILES.length; i++) {
+                percentiles.put(NAMES[i], Math.round(values[i] / 1e4) / 100.0);
+            }
+            percentiles.put("mean", requests == 0 ? 0 : Math.round(latency.getSum() / 1e4 / requests) / 100.0);
+            return new EndpointResult(requests, errors.sum(), requests == 0 ? 0 : (double) errors.sum() / requests,
+                    Math.round(requests / elapsedSeconds * 10) / 10.0, percentiles);
+        }
+    }
+}
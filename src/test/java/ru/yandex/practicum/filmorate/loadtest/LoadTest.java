@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Запуск: mvn test -Dtest=LoadTest -Dloadtest=true [-Dloadtest.rate=300 -Dloadtest.duration=60 ...]
+// Объём данных задают свойства loadtest.users, loadtest.films и другие поля DatasetGenerator.Scale
+// Отчёт по каждому эндпоинту пишется в target/load-test-report.json (путь задаёт loadtest.report)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "filmorate.logging.http-sample-rate=0")
+@AutoConfigureTestDatabase
+public class LoadTest {
+    private static final String DEFAULT_MIX =
+            "popular:40,film:20,like:15,search:10,recommendations:5,reviews:5,feed:5";
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private final double rate = Double.parseDouble(System.getProperty("loadtest.rate", "50"));
+    private final long duration = Long.parseLong(System.getProperty("loadtest.duration", "30"));
+    private final long warmup = Long.parseLong(System.getProperty("loadtest.warmup", "10"));
+    private final String mix = System.getProperty("loadtest.mix", DEFAULT_MIX);
+    private final long seed = Long.parseLong(System.getProperty("loadtest.seed", "42"));
+    private final DatasetGenerator.Scale scale = DatasetGenerator.Scale.fromSystemProperties("loadtest",
+            new DatasetGenerator.Scale(1000, 2000, 50, 20, 10, 0.5, 3));
+    private final Path report = Path.of(System.getProperty("loadtest.report", "target/load-test-report.json"));
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void runLoad() throws Exception {
+        new DatasetGenerator(jdbcTemplate, Path.of("target", "loadtest-data"), seed).generate(scale);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<LoadGenerator.Endpoint> endpoints = LoadGenerator.withWeights(endpoints(), mix);
+
+        new LoadGenerator(client, endpoints, seed + 1).run(rate, warmup);
+        Map<String, LoadGenerator.EndpointResult> results = new LoadGenerator(client, endpoints, seed)
+                .run(rate, duration);
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", rate);
+        config.put("durationSeconds", duration);
+        config.put("warmupSeconds", warmup);
+        config.put("mix", mix);
+        config.put("seed", seed);
+        config.put("dataset", scale);
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("config", config);
+        Map<String, Object> total = total(results);
+        output.put("total", total);
+        output.put("endpoints", results);
+
+        String json = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(output);
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        Files.writeString(report, json);
+        log.info("Отчёт нагрузочного теста записан в {}, итого: {}", report.toAbsolutePath(),
+                objectMapper.writeValueAsString(total));
+    }
+
+    private List<LoadGenerator.Endpoint> endpoints() {
+        return List.of(
+                new LoadGenerator.Endpoint("popular", 0, random -> random.nextInt(5) == 0
+                        ? get("/films/popular?count=10&genreId=" + (random.nextInt(6) + 1))
+                        : get("/films/popular?count=10")),
+                new LoadGenerator.Endpoint("film", 0, random -> get("/films/" + film(random))),
+                new LoadGenerator.Endpoint("like", 0, random -> HttpRequest.newBuilder(uri("/films/" + film(random)
+                                + "/like/" + user(random)))
+                        .PUT(HttpRequest.BodyPublishers.noBody())
+                        .build()),
+                new LoadGenerator.Endpoint("search", 0, random -> get("/films/search?query=film%20"
+                        + (random.nextInt(90) + 10) + "&by=" + (random.nextBoolean() ? "title" : "title,director"))),
+                new LoadGenerator.Endpoint("recommendations", 0,
+                        random -> get("/users/" + user(random) + "/recommendations")),
+                new LoadGenerator.Endpoint("reviews", 0,
+                        random -> get("/reviews?filmId=" + film(random) + "&count=10")),
+                new LoadGenerator.Endpoint("feed", 0, random -> get("/users/" + user(random) + "/feed")));
+    }
+
+    private Map<String, Object> total(Map<String, LoadGenerator.EndpointResult> results) {
+        long requests = results.values().stream().mapToLong(LoadGenerator.EndpointResult::requests).sum();
+        long errors = results.values().stream().mapToLong(LoadGenerator.EndpointResult::errors).sum();
+        double throughput = results.values().stream().mapToDouble(LoadGenerator.EndpointResult::throughput).sum();
+        Map<String, Object> total = new LinkedHashMap<>();
+        total.put("requests", requests);
+        total.put("errors", errors);
+        total.put("errorRate", requests == 0 ? 0 : (double) errors / requests);
+        total.put("throughput", Math.round(throughput * 10) / 10.0);
+        return total;
+    }
+
+    // Популярность фильмов и активность пользователей неравномерны: малые id выбираются чаще
+    private long film(Random random) {
+        return skewed(random, scale.films());
+    }
+
+    private long user(Random random) {
+        return skewed(random, scale.users());
+    }
+
+    private static long skewed(Random random, int size) {
+        double value = random.nextDouble();
+        return (long) (size * value * value * value) + 1;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilmSignatureIndexTest {
+
+    @Test
+    public void testRemoveLikeReloadsOutsideLockAndRetriesOnConcurrentChange() throws Exception {
+        AtomicBoolean concurrentLike = new AtomicBoolean(true);
+        FilmSignatureIndex[] index = new FilmSignatureIndex[1];
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:signatures;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                super.query(sql, rch, args);
+                // Между запросом и заменой подписи другой поток записывает лайк того же фильма.
+                // Под блокировкой индекса он не завершился бы, и тест упал бы по таймауту
+                if (concurrentLike.getAndSet(false)) {
+                    update("INSERT INTO films_Likes (film_id, user_id) VALUES (1, 3)");
+                    CompletableFuture.runAsync(() -> index[0].addLike(1, 3)).orTimeout(5, TimeUnit.SECONDS).join();
+                }
+            }
+        };
+        jdbcTemplate.execute("CREATE TABLE films_Likes (film_id BIGINT, user_id BIGINT)");
+        jdbcTemplate.update("INSERT INTO films_Likes (film_id, user_id) VALUES (1, 1), (1, 2), (2, 2), (2, 3)");
+        index[0] = new FilmSignatureIndex(jdbcTemplate);
+        index[0].similar(1, 1);
+
+        jdbcTemplate.update("DELETE FROM films_Likes WHERE film_id = 1 AND user_id = 1");
+        index[0].removeLike(1, 1);
+
+        // Подпись, посчитанная до чужого лайка, не ставится: после повтора аудитории фильмов совпадают
+        assertFalse(concurrentLike.get());
+        assertEquals(List.of(new FilmSignatureIndex.Match(2, 1.0)), index[0].similar(1, 1));
+    }
+}
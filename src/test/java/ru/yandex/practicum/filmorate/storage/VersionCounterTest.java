@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionCounterTest {
+
+    @Test
+    public void testOldVersionsFoldIntoFloor() {
+        VersionCounter versions = new VersionCounter();
+        for (long id = 1; id <= VersionCounter.MAX_TRACKED + 1; id++) {
+            versions.touch(id);
+        }
+        long last = versions.get();
+
+        // Старые записи свёрнуты: версия сущности не уменьшилась и осталась не больше общей
+        VersionCounter.Changes all = versions.changedSince(0);
+        assertFalse(all.complete());
+        assertTrue(all.ids().size() <= VersionCounter.MAX_TRACKED / 2);
+        assertTrue(versions.get(1L) >= 1 && versions.get(1L) < last);
+        assertEquals(versions.get(1L), versions.get(-1L));
+        assertEquals(last, versions.get(last));
+
+        VersionCounter.Changes recent = versions.changedSince(last - 3);
+        assertTrue(recent.complete());
+        assertEquals(Set.of(last - 2, last - 1, last), recent.ids());
+
+        // Изменение свёрнутой сущности снова даёт ей собственную версию
+        long folded = versions.get(1L);
+        versions.touch(1L);
+        assertTrue(versions.get(1L) > folded);
+        assertEquals(Set.of(1L, last), versions.changedSince(last - 1).ids());
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static ru.yandex.practicum.filmorate.controller.ApiFixtures.createFilms;
+import static ru.yandex.practicum.filmorate.controller.ApiFixtures.traceSpans;
+
+// Участки JDBC-запросов пишет счётчик запросов, поэтому он тоже включён
+@SpringBootTest(properties = {"filmorate.sql.query-stats.enabled=true", "filmorate.tracing.enabled=true",
+        "filmorate.tracing.file=target/traces/traces.jsonl"})
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class TracingTest {
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @Test
+    public void testTracingSpans() throws Exception {
+        createFilms(mockMvc, 1);
+
+        Map<String, JsonNode> byName = traceSpans(mockMvc, objectMapper, get("/films/1"));
+        JsonNode controller = byName.get("FilmController.getFilmById");
+        JsonNode service = byName.get("FilmService.getFilmById");
+        JsonNode storage = byName.get("FilmDbStorage.getFilmById");
+        JsonNode query = byName.get("executeQuery");
+        assertNotNull(controller);
+        assertNull(controller.get("parentId"));
+        assertEquals(controller.get("id").asText(), service.get("parentId").asText());
+        assertEquals(service.get("id").asText(), storage.get("parentId").asText());
+        assertEquals(controller.get("traceId").asText(), query.get("traceId").asText());
+        assertEquals("jdbc", query.get("tags").get("kind").asText());
+        assertTrue(controller.get("duration").asLong() >= service.get("duration").asLong());
+    }
+
+    @Test
+    public void testBatchTracingSpans() throws Exception {
+        createFilms(mockMvc, 1);
+
+        Map<String, JsonNode> byName = traceSpans(mockMvc, objectMapper, post("/batch")
+                .contentType(MediaType.APPLICATION_JSON).content("[{\"path\": \"/films/1\"}]"));
+        // Подзапрос выполняется в виртуальном потоке, но остаётся в трассировке пакета
+        JsonNode batch = byName.get("BatchController.execute");
+        JsonNode item = byName.get("FilmController.getFilmById");
+        assertNotNull(batch);
+        assertNull(batch.get("parentId"));
+        assertEquals(batch.get("traceId").asText(), item.get("traceId").asText());
+        assertEquals(batch.get("id").asText(), item.get("parentId").asText());
+    }
+}